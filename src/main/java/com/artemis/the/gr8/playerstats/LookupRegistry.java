@@ -0,0 +1,74 @@
+package com.artemis.the.gr8.playerstats;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of which CommandSenders have a stat-lookup running
+ * or waiting in line, to limit them to one lookup at a time.
+ * Senders are identified by their UUID (or a UUID made from their name,
+ * for the console and command blocks), and their slot is claimed and
+ * released in a single atomic step. A slot is released as soon as the
+ * lookup is done (or cancelled, or turned down because the line is full),
+ * so the registry never holds more entries than there are lookups.
+ */
+final class LookupRegistry {
+
+    private final ConcurrentHashMap<UUID, Claim> claims;
+
+    LookupRegistry() {
+        claims = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Claims the lookup-slot for this CommandSender, if it is free.
+     *
+     * @param sender the CommandSender that wants to start a lookup
+     * @return the claim, which should be given to {@link #release(Claim)}
+     * once the lookup is done, or null if this sender already has a lookup
+     */
+    @Nullable Claim tryClaim(CommandSender sender) {
+        UUID senderID = getSenderID(sender);
+        Claim claim = new Claim(senderID);
+        return claims.putIfAbsent(senderID, claim) == null ? claim : null;
+    }
+
+    /**
+     * Frees the lookup-slot of this claim.
+     */
+    void release(@Nullable Claim claim) {
+        if (claim != null) {
+            claims.remove(claim.senderID, claim);
+        }
+    }
+
+    /**
+     * @return the number of CommandSenders that currently have a lookup
+     * running or waiting in line
+     */
+    int getClaimCount() {
+        return claims.size();
+    }
+
+    private static UUID getSenderID(CommandSender sender) {
+        if (sender instanceof Entity entity) {
+            return entity.getUniqueId();
+        }
+        return UUID.nameUUIDFromBytes(("CommandSender:" + sender.getName()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The lookup-slot of a single CommandSender. */
+    static final class Claim {
+
+        private final UUID senderID;
+
+        private Claim(UUID senderID) {
+            this.senderID = senderID;
+        }
+    }
+}
@@ -8,12 +8,18 @@ import com.artemis.the.gr8.playerstats.commands.ShareCommand;
 import com.artemis.the.gr8.playerstats.commands.StatCommand;
 import com.artemis.the.gr8.playerstats.commands.TabCompleter;
 import com.artemis.the.gr8.playerstats.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.listeners.ExclusionListener;
 import com.artemis.the.gr8.playerstats.listeners.JoinListener;
+import com.artemis.the.gr8.playerstats.listeners.QuitListener;
+import com.artemis.the.gr8.playerstats.listeners.StatisticListener;
 import com.artemis.the.gr8.playerstats.msg.InternalFormatter;
 import com.artemis.the.gr8.playerstats.msg.MessageBuilder;
 import com.artemis.the.gr8.playerstats.msg.msgutils.LanguageKeyHandler;
+import com.artemis.the.gr8.playerstats.statistic.LiveTopStats;
 import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndexHandler;
 import com.artemis.the.gr8.playerstats.utils.EnumHandler;
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
@@ -32,6 +38,9 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class Main extends JavaPlugin {
 
+    /** How often players that haven't joined for too long are left out (one hour). */
+    private static final long activityUpdateTicks = 20 * 60 * 60;
+
     private static Main instance;
     private static BukkitAudiences adventure;
 
@@ -39,6 +48,8 @@ public final class Main extends JavaPlugin {
     private static LanguageKeyHandler languageKeyHandler;
     private static OfflinePlayerHandler offlinePlayerHandler;
     private static EnumHandler enumHandler;
+    private static StatIndexHandler statIndexHandler;
+    private static LiveTopStats liveTopStats;
 
     private static OutputManager outputManager;
     private static ShareManager shareManager;
@@ -65,8 +76,16 @@ public final class Main extends JavaPlugin {
         PluginCommand sharecmd = this.getCommand("statisticshare");
         if (sharecmd != null) sharecmd.setExecutor(new ShareCommand(shareManager, outputManager));
 
-        //register the listener
-        Bukkit.getPluginManager().registerEvents(new JoinListener(threadManager), this);
+        //register the listeners
+        Bukkit.getPluginManager().registerEvents(new JoinListener(statIndexHandler, liveTopStats), this);
+        Bukkit.getPluginManager().registerEvents(new QuitListener(statIndexHandler), this);
+        Bukkit.getPluginManager().registerEvents(new StatisticListener(liveTopStats), this);
+        ExclusionListener exclusionListener = new ExclusionListener(this, config, offlinePlayerHandler, statCalculator, liveTopStats);
+        Bukkit.getPluginManager().registerEvents(exclusionListener, this);
+        exclusionListener.startExclusionChecks();
+
+        //leave out players that haven't joined for too long, without a reload
+        startActivityUpdates();
         
         //finish up
         this.getLogger().info("Enabled PlayerStats!");
@@ -74,6 +93,15 @@ public final class Main extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (statIndexHandler != null) {
+            statIndexHandler.stopRefresher();
+        }
+        if (threadManager != null) {
+            threadManager.shutdown();
+        }
+        if (statIndexHandler != null) {
+            statIndexHandler.save();
+        }
         if (adventure != null) {
             adventure.close();
             adventure = null;
@@ -128,6 +156,13 @@ public final class Main extends JavaPlugin {
         return enumHandler;
     }
 
+    public static @NotNull StatIndexHandler getStatIndexHandler() throws IllegalStateException {
+        if (statIndexHandler == null) {
+            throw new IllegalStateException("PlayerStats does not seem to be loaded!");
+        }
+        return statIndexHandler;
+    }
+
     public static @NotNull StatCalculator getStatCalculator() throws IllegalStateException {
         if (statCalculator == null) {
             throw new IllegalStateException("PlayerStats does not seem to be loaded!");
@@ -157,9 +192,11 @@ public final class Main extends JavaPlugin {
         enumHandler = new EnumHandler();
         languageKeyHandler = new LanguageKeyHandler(instance);
         offlinePlayerHandler = new OfflinePlayerHandler();
+        statIndexHandler = new StatIndexHandler(this);
+        liveTopStats = new LiveTopStats(this, config, offlinePlayerHandler);
 
         shareManager = new ShareManager(config);
-        statCalculator = new StatCalculator(offlinePlayerHandler);
+        statCalculator = new StatCalculator(config, offlinePlayerHandler, statIndexHandler, liveTopStats);
         outputManager = new OutputManager(adventure, config, shareManager);
         threadManager = new ThreadManager(config, statCalculator, outputManager);
 
@@ -186,4 +223,30 @@ public final class Main extends JavaPlugin {
             }
         }.runTaskLaterAsynchronously(this, 200);
     }
+
+    /**
+     * Checks once an hour whether any players have gone past the
+     * "number-of-days-since-last-joined" setting. If they have, the live
+     * top-lists are filled again if any of these players were in them.
+     * Leaving players out starts a new epoch, which makes all remembered
+     * results outdated, so this is done in hourly batches instead of as
+     * soon as each player passes the limit.
+     */
+    private void startActivityUpdates() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (OfflinePlayerHandler.updateActivePlayers()) {
+                    MyLogger.logMediumLevelMsg("Updated active players (" +
+                            offlinePlayerHandler.getOfflinePlayerCount() + " included)");
+                    Bukkit.getScheduler().runTask(instance, () -> {
+                        //players may have joined since, so the lists are compared with the registry as it is now
+                        if (liveTopStats.removeInactivePlayers(offlinePlayerHandler.getPlayerRegistry())) {
+                            Bukkit.getScheduler().runTaskAsynchronously(instance, statCalculator::updateLiveTopStats);
+                        }
+                    });
+                }
+            }
+        }.runTaskTimerAsynchronously(this, activityUpdateTicks, activityUpdateTicks);
+    }
 }
\ No newline at end of file
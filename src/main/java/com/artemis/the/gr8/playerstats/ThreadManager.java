@@ -6,58 +6,238 @@ import com.artemis.the.gr8.playerstats.enums.StandardMessage;
 import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
 import com.artemis.the.gr8.playerstats.reload.ReloadThread;
 import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
-import com.artemis.the.gr8.playerstats.statistic.StatThread;
+import com.artemis.the.gr8.playerstats.statistic.StatLookup;
 import com.artemis.the.gr8.playerstats.utils.MyLogger;
 import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * The ThreadManager is in charge of the Threads that PlayerStats
- * can utilize. It keeps track of past and currently active Threads,
- * to ensure a Player cannot start multiple Threads at the same time
- * (thereby limiting them to one stat-lookup at a time). It also
- * passes appropriate references along to the {@link StatThread}
- * or {@link ReloadThread}, to ensure those will never run at the
- * same time.
+ * can utilize. Stat-commands are run as a {@link StatLookup} on a small,
+ * fixed number of lookup threads: lookups that come in while all of them
+ * are busy wait in line (up to a maximum), and are started in the order
+ * they came in. It keeps track of the lookups that are running or waiting,
+ * to ensure a Player cannot start multiple lookups at the same time.
+ * Lookups and reloads don't wait for each other (except for the very first
+ * load on start-up): a {@link ReloadThread} publishes a new player-list
+ * in one go, and running lookups finish with the list they started with.
+ * Finally, it owns the ForkJoinPool that all calculations
+ * are done in, so PlayerStats doesn't have to compete with other
+ * plugins for the threads in the common pool, and the small pool of
+ * threads that asynchronous API-requests are executed on.
  */
 public final class ThreadManager {
 
-    private final static int threshold = 10;
+    //rough guesses rather than measured values: a few subtasks per thread lets
+    //threads that finish early steal work, and 100 microseconds is well above
+    //what it costs to create and fork a subtask
+    private final static int minimumThreshold = 10;
+    private final static int leavesPerThread = 4;
+    private final static long minimumLeafNanos = 100_000;
+    private final static int maxQueuedRequests = 256;
     private int statThreadID;
     private int reloadThreadID;
 
     private static ConfigHandler config;
     private static OutputManager outputManager;
     private static StatCalculator statCalculator;
+    private static ForkJoinPool workerPool;
+    private static ThreadPoolExecutor requestExecutor;
+    private static ThreadPoolExecutor lookupExecutor;
+    private static boolean useManagedBlocking;
 
     private ReloadThread lastActiveReloadThread;
-    private StatThread lastActiveStatThread;
-    private final HashMap<String, Thread> statThreads;
+    private final LookupRegistry lookupRegistry;
     private static long lastRecordedCalcTime;
+    private static volatile long statCostPerPlayer;
+    private static volatile long reloadCostPerPlayer;
 
     public ThreadManager(ConfigHandler config, StatCalculator statCalculator, OutputManager outputManager) {
         ThreadManager.config = config;
         ThreadManager.outputManager = outputManager;
         ThreadManager.statCalculator = statCalculator;
 
-        statThreads = new HashMap<>();
+        lookupRegistry = new LookupRegistry();
         statThreadID = 0;
         reloadThreadID = 0;
         lastRecordedCalcTime = 0;
 
+        workerPool = createWorkerPool(config);
+        requestExecutor = createExecutor(config.getRequestThreadCount(), maxQueuedRequests,
+                config.getWorkerThreadName() + "-Request-");
+        lookupExecutor = createExecutor(config.getMaxConcurrentLookups(), config.getMaxQueuedLookups(),
+                config.getWorkerThreadName() + "-Lookup-");
+        useManagedBlocking = config.useManagedBlocking();
+
         startReloadThread(null);
     }
 
-    public static int getTaskThreshold() {
-        return threshold;
+    /**
+     * Gets the number of players a single subtask should process, so that
+     * a task is split into about {@link #leavesPerThread} subtasks per worker thread.
+     * If the average time it takes to process a single player is known,
+     * subtasks are made big enough to take at least {@link #minimumLeafNanos},
+     * so cheap tasks are not split into more subtasks than they are worth.
+     * These numbers are rules of thumb, and have not been tuned with a benchmark.
+     *
+     * @param taskLength the total number of players to process
+     * @param nanosPerPlayer the measured average time per player in nanoseconds (or 0 if unknown)
+     * @return the threshold below which a task should no longer be split
+     */
+    public static int getTaskThreshold(int taskLength, long nanosPerPlayer) {
+        int targetLeaves = workerPool.getParallelism() * leavesPerThread;
+        long threshold = (taskLength + targetLeaves - 1) / targetLeaves;
+        if (nanosPerPlayer > 0) {
+            threshold = Math.max(threshold, minimumLeafNanos / nanosPerPlayer);
+        }
+        return (int) Math.max(minimumThreshold, Math.min(threshold, Math.max(taskLength, 1)));
+    }
+
+    /**
+     * @return the measured average time it takes to get
+     * a statistic for a single player (in nanoseconds)
+     */
+    public static long getStatCostPerPlayer() {
+        return statCostPerPlayer;
+    }
+
+    /**
+     * @return the measured average time it takes to check
+     * a single player during a reload (in nanoseconds)
+     */
+    public static long getReloadCostPerPlayer() {
+        return reloadCostPerPlayer;
+    }
+
+    /**
+     * Store how long it took to get a statistic for all players,
+     * to determine the threshold for the next stat-lookup.
+     */
+    public static void recordStatCost(int players, long nanos) {
+        statCostPerPlayer = getMovingAverage(statCostPerPlayer, players, nanos);
+    }
+
+    /**
+     * Store how long it took to check all players during a reload,
+     * to determine the threshold for the next reload.
+     */
+    public static void recordReloadCost(int players, long nanos) {
+        reloadCostPerPlayer = getMovingAverage(reloadCostPerPlayer, players, nanos);
+    }
+
+    private static long getMovingAverage(long average, int players, long nanos) {
+        if (players <= 0) {
+            return average;
+        }
+        //multiply by the number of threads, because the players were processed in parallel
+        long cost = Math.max(1, nanos * workerPool.getParallelism() / players);
+        return average == 0 ? cost : (average * 3 + cost) / 4;
+    }
+
+    /**
+     * @return the ForkJoinPool that should be used for all of PlayerStats' calculations
+     */
+    public static ForkJoinPool getWorkerPool() {
+        return workerPool;
+    }
+
+    /**
+     * Runs a task on the threads for asynchronous API-requests. If the
+     * returned future is cancelled or times out before the task is done,
+     * the thread running the task is interrupted, which stops any
+     * calculation it is doing.
+     *
+     * @param task the task to run
+     * @return a CompletableFuture that completes with the result of the task,
+     * or exceptionally with a RejectedExecutionException if too many tasks are waiting
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> execution;
+        try {
+            execution = requestExecutor.submit(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete((result, exception) -> {
+            if (exception != null) {
+                execution.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs a task that reads from disk. If the config says so, and this method is called
+     * from one of the worker threads, the task is run as a {@link ForkJoinPool.ManagedBlocker},
+     * so the worker pool can start an extra thread while this one is waiting.
+     *
+     * @param task the task that reads from disk
+     * @throws IOException if the task throws one, or if the thread was interrupted while waiting
+     */
+    public static void runBlocking(BlockingTask task) throws IOException {
+        if (useManagedBlocking && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            FileReadBlocker blocker = new FileReadBlocker(task);
+            try {
+                ForkJoinPool.managedBlock(blocker);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading from disk");
+            }
+            if (blocker.exception != null) {
+                throw blocker.exception;
+            }
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Shuts down the worker pool, and waits a few seconds
+     * for running calculations to finish.
+     */
+    public void shutdown() {
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+        }
+        if (lookupExecutor != null) {
+            lookupExecutor.shutdownNow();
+        }
+        if (workerPool == null) {
+            return;
+        }
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     public void startReloadThread(CommandSender sender) {
         if (lastActiveReloadThread == null || !lastActiveReloadThread.isAlive()) {
             reloadThreadID += 1;
 
-            lastActiveReloadThread = new ReloadThread(config, outputManager, reloadThreadID, lastActiveStatThread, sender);
+            lastActiveReloadThread = new ReloadThread(config, outputManager, reloadThreadID, sender);
             lastActiveReloadThread.start();
         }
         else {
@@ -65,20 +245,55 @@ public final class ThreadManager {
         }
     }
 
-    public void startStatThread(RequestSettings requestSettings) {
-        statThreadID += 1;
-        String cmdSender = requestSettings.getCommandSender().getName();
+    /**
+     * Gets the statistic for this request, and sends it to the CommandSender.
+     * Requests that are cheap to answer (such as a player-statistic for a player
+     * that is online) are answered right away, everything else is run as a
+     * {@link StatLookup} by the lookup executor. If all lookup threads are busy,
+     * the CommandSender is told their place in line and about how long it will take,
+     * and if the line is full, the request is turned down.
+     *
+     * @param requestSettings a validated RequestSettings object
+     */
+    public void startStatLookup(RequestSettings requestSettings) {
+        if (!isStartingUp() && StatLookup.trySendCheapResult(outputManager, statCalculator, requestSettings)) {
+            MyLogger.logHighLevelMsg("Answered request from " + requestSettings.getCommandSender().getName() + " right away");
+            return;
+        }
 
-        if (config.limitStatRequests() && statThreads.containsKey(cmdSender)) {
-            Thread runningThread = statThreads.get(cmdSender);
-            if (runningThread.isAlive()) {
+        LookupRegistry.Claim claim = null;
+        if (config.limitStatRequests()) {
+            claim = lookupRegistry.tryClaim(requestSettings.getCommandSender());
+            if (claim == null) {
                 outputManager.sendFeedbackMsg(requestSettings.getCommandSender(), StandardMessage.REQUEST_ALREADY_RUNNING);
-            } else {
-                startNewStatThread(requestSettings);
+                return;
             }
-        } else {
-            startNewStatThread(requestSettings);
         }
+        statThreadID += 1;
+        startNewStatLookup(requestSettings, claim);
+    }
+
+    /**
+     * @return the number of stat-lookups that are running right now
+     */
+    public int getRunningLookupCount() {
+        return lookupExecutor.getActiveCount();
+    }
+
+    /**
+     * @return the number of stat-lookups that are waiting in line
+     */
+    public int getQueuedLookupCount() {
+        return lookupExecutor.getQueue().size();
+    }
+
+    /**
+     * @return the number of CommandSenders that have a stat-lookup
+     * running or waiting in line (only counted if they are limited
+     * to one lookup at a time)
+     */
+    public int getSendersWithLookupCount() {
+        return lookupRegistry.getClaimCount();
     }
 
     /**
@@ -97,9 +312,165 @@ public final class ThreadManager {
         return lastRecordedCalcTime;
     }
 
-    private void startNewStatThread(RequestSettings requestSettings) {
-        lastActiveStatThread = new StatThread(outputManager, statCalculator, statThreadID, requestSettings, lastActiveReloadThread);
-        statThreads.put(requestSettings.getCommandSender().getName(), lastActiveStatThread);
-        lastActiveStatThread.start();
+    private void startNewStatLookup(RequestSettings requestSettings, @Nullable LookupRegistry.Claim claim) {
+        CommandSender sender = requestSettings.getCommandSender();
+        QueuedLookup statLookup = new QueuedLookup(
+                new StatLookup(outputManager, statCalculator, statThreadID, requestSettings,
+                        isStartingUp() ? lastActiveReloadThread : null), claim);
+        try {
+            lookupExecutor.execute(statLookup);
+        } catch (RejectedExecutionException e) {
+            lookupRegistry.release(claim);
+            MyLogger.logLowLevelMsg("Turned down a lookup from " + sender.getName() + ", because the line is full");
+            outputManager.sendFeedbackMsg(sender, StandardMessage.TOO_MANY_LOOKUPS);
+            return;
+        }
+
+        int position = getPositionInLine(statLookup);
+        MyLogger.logHighLevelMsg("Lookups running: " + getRunningLookupCount() +
+                ", waiting: " + getQueuedLookupCount() + ", senders: " + getSendersWithLookupCount());
+        if (position > 0) {
+            outputManager.sendFeedbackMsgLookupQueued(sender, position, getEstimatedWaitSeconds(position));
+        }
+    }
+
+    /**
+     * Only the first load has to be waited for: after that, a reload
+     * builds a new player-list next to the old one, and lookups
+     * keep using the list they started with until they are done.
+     */
+    private boolean isStartingUp() {
+        return reloadThreadID == 1 && lastActiveReloadThread.isAlive();
+    }
+
+    /**
+     * @return the place in line for this lookup (starting at 1),
+     * or 0 if it is no longer waiting
+     */
+    private static int getPositionInLine(QueuedLookup statLookup) {
+        int position = 1;
+        for (Runnable waiting : lookupExecutor.getQueue()) {
+            if (waiting == statLookup) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    /**
+     * Estimates how long it will take before the lookup in this place in line
+     * is started, assuming every lookup before it takes as long as the last
+     * recorded calculation for all players.
+     *
+     * @return the estimated number of seconds, or 0 if there is nothing to estimate with
+     */
+    private static long getEstimatedWaitSeconds(int position) {
+        int lookupThreads = lookupExecutor.getMaximumPoolSize();
+        long rounds = (position + lookupThreads - 1) / lookupThreads;
+        return (rounds * lastRecordedCalcTime + 999) / 1000;
+    }
+
+    private static ForkJoinPool createWorkerPool(ConfigHandler config) {
+        int parallelism = config.getWorkerThreadCount();
+        if (parallelism <= 0) {
+            parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        }
+        String threadName = config.getWorkerThreadName();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(threadName + "-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        };
+        MyLogger.logMediumLevelMsg("Starting worker pool with " + parallelism + " threads");
+        return new ForkJoinPool(parallelism, threadFactory, null, false);
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threadCount, int maxQueued, String threadName) {
+        int threads = Math.max(1, threadCount);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, threadName + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxQueued)), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A {@link StatLookup} that is running or waiting in line,
+     * which releases its sender's slot when it is done (or cancelled).
+     * If the lookup failed, the exception is logged and the sender
+     * is told something went wrong, instead of being left waiting.
+     */
+    private final class QueuedLookup extends FutureTask<Void> {
+
+        private final String name;
+        private final CommandSender sender;
+        private final LookupRegistry.Claim claim;
+
+        private QueuedLookup(StatLookup statLookup, @Nullable LookupRegistry.Claim claim) {
+            super(statLookup, null);
+            this.name = statLookup.getName();
+            this.sender = statLookup.getRequestSettings().getCommandSender();
+            this.claim = claim;
+        }
+
+        @Override
+        protected void done() {
+            lookupRegistry.release(claim);
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException) {
+                    MyLogger.logLowLevelMsg(name + " was cancelled");
+                    return;
+                }
+                MyLogger.logException(e.getCause() instanceof Exception cause ? cause : e, "ThreadManager", name);
+                outputManager.sendFeedbackMsg(sender, StandardMessage.UNKNOWN_ERROR);
+            }
+        }
+    }
+
+    /** A task that reads something from disk. */
+    @FunctionalInterface
+    public interface BlockingTask {
+        void run() throws IOException;
+    }
+
+    private static final class FileReadBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final BlockingTask task;
+        private boolean done;
+        private IOException exception;
+
+        private FileReadBlocker(BlockingTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                task.run();
+            } catch (IOException e) {
+                exception = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
     }
-}
\ No newline at end of file
+}
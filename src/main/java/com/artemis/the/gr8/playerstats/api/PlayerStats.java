@@ -14,7 +14,9 @@ import org.jetbrains.annotations.NotNull;
  * <p> Since calculating a top or server statistics can take some time, I strongly
  * encourage you to call {@link StatRequest#execute()} asynchronously.
  * Otherwise, the main Thread will have to wait until all calculations are done,
- * and this can severely impact server performance.
+ * and this can severely impact server performance. The easiest way to do this
+ * is with {@link StatRequest#executeAsync()}, which runs the request on
+ * PlayerStats' own threads and returns a CompletableFuture.
  *
  * @see StatManager
  * @see ApiFormatter
@@ -1,8 +1,11 @@
 package com.artemis.the.gr8.playerstats.api;
 
 import com.artemis.the.gr8.playerstats.statistic.request.*;
+import com.artemis.the.gr8.playerstats.statistic.result.StatResult;
 import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
 
+import java.util.List;
+
 import static org.jetbrains.annotations.ApiStatus.Internal;
 
 /** The implementation of the API Interface */
@@ -33,21 +36,44 @@ public final class PlayerStatsAPI implements PlayerStats, StatManager {
         return new PlayerStatRequest(request);
     }
 
+    @Override
+    public RankStatRequest rankStatRequest(String playerName) {
+        RequestSettings request = RequestHandler.getBasicRankStatRequest(playerName);
+        return new RankStatRequest(request);
+    }
+
     @Override
     public ServerStatRequest serverStatRequest() {
         RequestSettings request = RequestHandler.getBasicServerStatRequest();
         return new ServerStatRequest(request);
     }
 
+    @Override
+    public PercentileStatRequest percentileStatRequest() {
+        RequestSettings request = RequestHandler.getBasicPercentileStatRequest();
+        return new PercentileStatRequest(request);
+    }
+
     @Override
     public TopStatRequest topStatRequest(int topListSize) {
         RequestSettings request = RequestHandler.getBasicTopStatRequest(topListSize);
         return new TopStatRequest(request);
     }
 
+    @Override
+    public TopStatRequest topStatPageRequest(int offset, int limit) {
+        RequestSettings request = RequestHandler.getBasicTopStatPageRequest(offset, limit);
+        return new TopStatRequest(request);
+    }
+
     @Override
     public TopStatRequest totalTopStatRequest() {
         int playerCount = offlinePlayerHandler.getOfflinePlayerCount();
         return topStatRequest(playerCount);
     }
+
+    @Override
+    public List<StatResult<?>> executeBatch(List<? extends StatRequest<?>> requests) {
+        return StatRequest.executeAll(requests);
+    }
 }
\ No newline at end of file
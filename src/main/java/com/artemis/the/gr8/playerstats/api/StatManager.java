@@ -1,8 +1,10 @@
 package com.artemis.the.gr8.playerstats.api;
 
 import com.artemis.the.gr8.playerstats.statistic.request.StatRequest;
+import com.artemis.the.gr8.playerstats.statistic.result.StatResult;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 
 /**
  * Turns user input into a {@link StatRequest} that can be used to get statistic data
@@ -17,6 +19,16 @@ public interface StatManager {
      * @return the RequestGenerator */
     RequestGenerator<Integer> playerStatRequest(String playerName);
 
+    /** Gets a RequestGenerator that can be used to create a RankStatRequest.
+     * This RequestGenerator will make sure all default settings
+     * for a rank-statistic-lookup are configured. The result of this
+     * lookup is the place the player is in, compared to all other players
+     * (starting at 1, where players with the same number share a place).
+     *
+     * @param playerName the player whose rank is being requested
+     * @return the RequestGenerator */
+    RequestGenerator<Integer> rankStatRequest(String playerName);
+
     /** Gets a RequestGenerator that can be used to create a ServerStatRequest.
      * This RequestGenerator will make sure all default settings
      * for a server-statistic-lookup are configured.
@@ -24,6 +36,16 @@ public interface StatManager {
      * @return the RequestGenerator*/
     RequestGenerator<Long> serverStatRequest();
 
+    /** Gets a RequestGenerator that can be used to create a PercentileStatRequest.
+     * This RequestGenerator will make sure all default settings
+     * for a percentile-statistic-lookup are configured. The result of this
+     * lookup is the number for the 0th, 10th, 25th, 50th, 75th, 90th, 99th
+     * and 100th percentile of all players. Depending on the config, these
+     * numbers are either exact or estimated.
+     *
+     * @return the RequestGenerator*/
+    RequestGenerator<LinkedHashMap<Integer, Integer>> percentileStatRequest();
+
     /** Gets a RequestGenerator that can be used to create a TopStatRequest
      * for a top-list of the specified size. This RequestGenerator will
      * make sure all default settings for a top-statistic-lookup are configured.
@@ -32,6 +54,18 @@ public interface StatManager {
      * @return the RequestGenerator*/
     RequestGenerator<LinkedHashMap<String, Integer>> topStatRequest(int topListSize);
 
+    /** Gets a RequestGenerator that can be used to create a TopStatRequest
+     * for a single page of a top-list. The places in the result start right
+     * after the offset, so the first page has an offset of 0, and the third
+     * page of a list with 45 places per page has an offset of 90. Only the
+     * places on the requested page are sorted, so a page far down the list
+     * costs about as much as the first one.
+     *
+     * @param offset the number of places to skip at the start of the top-list
+     * @param limit the maximum number of places on this page
+     * @return the RequestGenerator*/
+    RequestGenerator<LinkedHashMap<String, Integer>> topStatPageRequest(int offset, int limit);
+
     /** Gets a RequestGenerator that can be used to create a TopStatRequest
      * for all offline players on the server (those that are included by
      * PlayerStats' settings). This RequestGenerator will make sure
@@ -39,4 +73,14 @@ public interface StatManager {
      *
      * @return the RequestGenerator*/
     RequestGenerator<LinkedHashMap<String, Integer>> totalTopStatRequest();
+
+    /** Executes a number of StatRequests at once. The statistics for all
+     * Top-, Server-, Rank- and PercentileRequests in this list are calculated together, in a
+     * single pass over all players, which is a lot faster than executing them
+     * one by one. Like {@link StatRequest#execute()}, this can take some time,
+     * so it should be called asynchronously!
+     *
+     * @param requests the StatRequests to execute
+     * @return the StatResults, in the same order as the requests*/
+    List<StatResult<?>> executeBatch(List<? extends StatRequest<?>> requests);
 }
\ No newline at end of file
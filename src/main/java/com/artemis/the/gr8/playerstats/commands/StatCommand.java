@@ -37,7 +37,7 @@ public final class StatCommand implements CommandExecutor {
 
             RequestSettings completedRequest = requestHandler.getRequestFromArgs(args);
             if (completedRequest.isValid()) {
-                threadManager.startStatThread(completedRequest);
+                threadManager.startStatLookup(completedRequest);
             } else {
                 sendFeedback(completedRequest);
                 return false;
@@ -53,7 +53,7 @@ public final class StatCommand implements CommandExecutor {
      * <ul>
      * <li>Is a <code>statistic</code> set?
      * <li>Is a <code>subStatEntry</code> needed, and if so, is a corresponding Material/EntityType present?
-     * <li>If the <code>target</code> is Player, is a valid <code>playerName</code> provided?
+     * <li>If the <code>target</code> is Player or Rank, is a valid <code>playerName</code> provided?
      * </ul>
      *
      * @param requestSettings the RequestSettings to give feedback on
@@ -64,7 +64,8 @@ public final class StatCommand implements CommandExecutor {
         if (requestSettings.getStatistic() == null) {
             outputManager.sendFeedbackMsg(sender, StandardMessage.MISSING_STAT_NAME);
         }
-        else if (requestSettings.getTarget() == Target.PLAYER && requestSettings.getPlayerName() == null) {
+        else if ((requestSettings.getTarget() == Target.PLAYER || requestSettings.getTarget() == Target.RANK) &&
+                requestSettings.getPlayerName() == null) {
             outputManager.sendFeedbackMsg(sender, StandardMessage.MISSING_PLAYER_NAME);
         }
         else {
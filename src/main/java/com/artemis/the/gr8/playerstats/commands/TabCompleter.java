@@ -29,6 +29,8 @@ public final class TabCompleter implements org.bukkit.command.TabCompleter {
         commandOptions.add("top");
         commandOptions.add("player");
         commandOptions.add("server");
+        commandOptions.add("rank");
+        commandOptions.add("percentiles");
         commandOptions.add("me");
 
     }
@@ -70,6 +72,18 @@ public final class TabCompleter implements org.bukkit.command.TabCompleter {
                     }
                 }
 
+                //if previous arg = "rank", suggest playerNames
+                else if (previousArg.equalsIgnoreCase("rank")) {
+                    List<String> playerNames = new ArrayList<>(offlinePlayerHandler.getOfflinePlayerNames());
+                    playerNames.add("me");
+                    tabSuggestions = getTabSuggestions(playerNames, currentArg);
+                }
+
+                //if previous arg = "top", suggest "page"
+                else if (previousArg.equalsIgnoreCase("top")) {
+                    tabSuggestions = getTabSuggestions(List.of("page"), currentArg);
+                }
+
                 //after a substatistic, suggest commandOptions
                 else if (enumHandler.isSubStatEntry(previousArg)) {
                     tabSuggestions = commandOptions;
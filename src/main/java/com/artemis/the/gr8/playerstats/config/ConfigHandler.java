@@ -10,6 +10,7 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.List;
 
 /** Handles all PlayerStats' config-settings. */
 public final class ConfigHandler {
@@ -18,11 +19,11 @@ public final class ConfigHandler {
     private static int configVersion;
 
     private File configFile;
-    private FileConfiguration config;
+    private volatile FileConfiguration config;
 
     public ConfigHandler(Main plugin) {
         ConfigHandler.plugin = plugin;
-        configVersion = 6;
+        configVersion = 7;
 
         saveDefaultConfig();
         config = YamlConfiguration.loadConfiguration(configFile);
@@ -40,7 +41,8 @@ public final class ConfigHandler {
      * <br>PlayerStats 1.3: "config-version" is 3.
      * <br>PlayerStats 1.4: "config-version" is 4.
      * <br>PlayerStats 1.5: "config-version" is 5.
-     * <br>PlayerStats 1.6 and up: "config-version" is 6.
+     * <br>PlayerStats 1.6 - 1.8: "config-version" is 6.
+     * <br>PlayerStats 1.9 and up: "config-version" is 7.
      */
     private void checkConfigVersion() {
         if (!config.contains("config-version") || config.getInt("config-version") != configVersion) {
@@ -133,6 +135,15 @@ public final class ConfigHandler {
         return config.getBoolean("exclude-banned-players", false);
     }
 
+    /**
+     * The number of minutes between checks of the whitelist or banlist
+     * for changes that were not made with a command.
+     * @return the number (default: 10 - and 0 to disable these checks)
+     */
+    public int getExclusionCheckInterval() {
+        return config.getInt("exclusion-check-interval-minutes", 10);
+    }
+
     /**
      * The number of maximum days since a player has last been online.
      * @return the number (default: 0 - which signals not to use this limit)
@@ -141,6 +152,93 @@ public final class ConfigHandler {
         return config.getInt("number-of-days-since-last-joined", 0);
     }
 
+    /**
+     * The number of threads in PlayerStats' worker pool.
+     * @return the number (default: 0 - which signals to use
+     * one less than the number of available processors)
+     */
+    public int getWorkerThreadCount() {
+        return config.getInt("worker-threads", 0);
+    }
+
+    /**
+     * The number of threads that asynchronous API-requests are executed on.
+     * @return the number (default: 2)
+     */
+    public int getRequestThreadCount() {
+        return config.getInt("request-threads", 2);
+    }
+
+    /**
+     * The maximum number of stat-lookups from commands that can run at the same time.
+     * @return the number (default: 2)
+     */
+    public int getMaxConcurrentLookups() {
+        return config.getInt("max-concurrent-lookups", 2);
+    }
+
+    /**
+     * The maximum number of stat-lookups from commands that can wait in line
+     * for a running lookup to finish.
+     * @return the number (default: 50)
+     */
+    public int getMaxQueuedLookups() {
+        return config.getInt("max-queued-lookups", 50);
+    }
+
+    /**
+     * The name for the threads in PlayerStats' worker pool.
+     * @return the config setting (default: "PlayerStats-Worker")
+     */
+    public String getWorkerThreadName() {
+        return config.getString("worker-thread-name", "PlayerStats-Worker");
+    }
+
+    /**
+     * Whether the worker threads should use a ManagedBlocker when
+     * they read player files from disk.
+     * @return the config setting (default: false)
+     */
+    public boolean useManagedBlocking() {
+        return config.getBoolean("use-managed-blocking-for-file-reads", false);
+    }
+
+    /**
+     * The number of seconds the results of top- and server-statistics
+     * should be remembered for.
+     * @return the number (default: 30 - and 0 to disable the cache)
+     */
+    public int getResultCacheTime() {
+        return config.getInt("remember-results-for-seconds", 30);
+    }
+
+    /**
+     * The maximum amount of memory the remembered results can use.
+     * @return the number of kilobytes (default: 1024)
+     */
+    public int getResultCacheSize() {
+        return config.getInt("remembered-results-max-kilobytes", 1024);
+    }
+
+    /**
+     * Whether percentile-statistics should be calculated exactly (by sorting
+     * the values of all players), or estimated (which uses less memory).
+     * @return the config setting (default: true)
+     */
+    public boolean useExactPercentiles() {
+        return config.getBoolean("exact-percentiles", true);
+    }
+
+    /**
+     * The statistics that should have a top-list that is kept
+     * up-to-date while players are online.
+     * @return a list of statistic names, optionally followed by a colon
+     * and a sub-statistic name (default: empty)
+     */
+    public List<String> getLiveTopStatistics() {
+        return config.getStringList("live-top-statistics");
+    }
+
     /**
      * Whether to use TranslatableComponents wherever possible.
      *
@@ -188,8 +286,8 @@ public final class ConfigHandler {
         boolean def = selection == Target.TOP && !getSharedSetting;
         if (section != null) {
             String path = switch (selection) {
-                case TOP -> getSharedSetting ? "top-stats-shared" : "top-stats";
-                case PLAYER -> getSharedSetting ? "player-stats-shared" : "player-stats";
+                case TOP, PERCENTILE -> getSharedSetting ? "top-stats-shared" : "top-stats";
+                case PLAYER, RANK -> getSharedSetting ? "player-stats-shared" : "player-stats";
                 case SERVER -> getSharedSetting ? "server-stats-shared" : "server-stats";
             };
             return section.getBoolean(path, def);
@@ -569,10 +667,10 @@ public final class ConfigHandler {
             return config.getConfigurationSection("shared-stats");
         }
         switch (selection) {
-            case TOP -> {
+            case TOP, PERCENTILE -> {
                 return config.getConfigurationSection("top-list");
             }
-            case PLAYER -> {
+            case PLAYER, RANK -> {
                 return config.getConfigurationSection("individual-statistics");
             }
             case SERVER -> {
@@ -11,6 +11,7 @@ public enum StandardMessage {
     MISSING_STAT_NAME,
     MISSING_PLAYER_NAME,
     REQUEST_ALREADY_RUNNING,
+    TOO_MANY_LOOKUPS,
     STILL_ON_SHARE_COOLDOWN,
     RESULTS_ALREADY_SHARED,
     STAT_RESULTS_TOO_OLD,
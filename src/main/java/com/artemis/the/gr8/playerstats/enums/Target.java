@@ -2,8 +2,8 @@ package com.artemis.the.gr8.playerstats.enums;
 
 /**
  * This enum represents the targets PlayerStats accepts
- * for a stat-lookup (Player, Server and Top).
+ * for a stat-lookup (Player, Server, Top, Rank and Percentile).
  */
 public enum Target {
-    PLAYER, SERVER, TOP
+    PLAYER, SERVER, TOP, RANK, PERCENTILE
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.artemis.the.gr8.playerstats.listeners;
+
+import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.reload.ExclusionFilter;
+import com.artemis.the.gr8.playerstats.statistic.LiveTopStats;
+import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.server.RemoteServerCommandEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Listens for changes in the banlist or whitelist, so players can be
+ * excluded from (or included in) statistic calculations right away,
+ * without reloading the whole list of players. Bukkit has no events for
+ * these changes, so the commands that make them are watched instead (from
+ * players, the console and RCON), and such a command is checked a second
+ * later, to give the command (and plugins like LiteBans) time to be carried out.
+ * Changes that are made without a command (by another plugin, or on a
+ * website) are noticed when the player tries to log in, and by checking
+ * the whole list every few minutes.
+ */
+@ApiStatus.Internal
+public class ExclusionListener implements Listener {
+
+    private static final long delayTicks = 20;
+
+    private static Main plugin;
+    private static ConfigHandler config;
+    private static OfflinePlayerHandler offlinePlayerHandler;
+    private static StatCalculator statCalculator;
+    private static LiveTopStats liveTopStats;
+
+    public ExclusionListener(Main p, ConfigHandler c, OfflinePlayerHandler o, StatCalculator s, LiveTopStats l) {
+        plugin = p;
+        config = c;
+        offlinePlayerHandler = o;
+        statCalculator = s;
+        liveTopStats = l;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent commandEvent) {
+        handleCommand(commandEvent.getMessage());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent commandEvent) {
+        handleCommand(commandEvent.getCommand());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onRemoteServerCommand(RemoteServerCommandEvent commandEvent) {
+        handleCommand(commandEvent.getCommand());
+    }
+
+    /**
+     * A player that is turned away for being banned or not being whitelisted
+     * (or that is let in while they are excluded) is checked again, in case
+     * this changed without a command.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent loginEvent) {
+        if (!config.whitelistOnly() && !config.excludeBanned()) {
+            return;
+        }
+        UUID uuid = loginEvent.getPlayer().getUniqueId();
+        boolean recheck = switch (loginEvent.getResult()) {
+            case KICK_BANNED, KICK_WHITELIST -> true;
+            case ALLOWED -> {
+                PlayerRegistry players = offlinePlayerHandler.getPlayerRegistry();
+                int ordinal = players.getOrdinal(uuid);
+                yield ordinal != -1 && players.isExcluded(ordinal);
+            }
+            default -> false;
+        };
+        if (recheck) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> updateExclusion(uuid));
+        }
+    }
+
+    /**
+     * Checks the whole banlist or whitelist again every few minutes (as set in the
+     * config), for changes that were made without a command. If nothing changed,
+     * this doesn't affect remembered results or the live top-lists.
+     */
+    public void startExclusionChecks() {
+        long intervalTicks = config.getExclusionCheckInterval() * 60L * 20L;
+        if (intervalTicks <= 0) {
+            return;
+        }
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (config.whitelistOnly() || config.excludeBanned()) {
+                    updateExclusions();
+                }
+            }
+        }.runTaskTimerAsynchronously(plugin, intervalTicks, intervalTicks);
+    }
+
+    private void handleCommand(String command) {
+        if (!config.whitelistOnly() && !config.excludeBanned()) {
+            return;
+        }
+        String[] args = command.trim().split("\\s+");
+        String label = getLabel(args[0]);
+        if (config.whitelistOnly()) {
+            if (label.equals("whitelist") && args.length > 1) {
+                String action = args[1].toLowerCase(Locale.ENGLISH);
+                if ((action.equals("add") || action.equals("remove")) && args.length > 2) {
+                    scheduleUpdate(args[2]);
+                } else if (action.equals("reload")) {
+                    scheduleUpdates();
+                }
+            }
+        }
+        else if (args.length > 1) {
+            switch (label) {
+                case "ban", "tempban", "pardon", "unban" -> scheduleUpdate(args[1]);
+                //an IP can belong to any number of players
+                case "ban-ip", "banip", "pardon-ip", "unbanip" -> scheduleUpdates();
+            }
+        }
+    }
+
+    /**
+     * Checks whether this player should be excluded,
+     * after a short delay and outside the main thread.
+     */
+    private void scheduleUpdate(String playerName) {
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+            PlayerRegistry players = offlinePlayerHandler.getPlayerRegistry();
+            int ordinal = players.findOrdinal(playerName);
+            if (ordinal != -1) {
+                updateExclusion(players.getUUID(ordinal));
+            }
+        }, delayTicks);
+    }
+
+    /**
+     * Checks for every player whether they should be excluded,
+     * after a short delay and outside the main thread.
+     */
+    private void scheduleUpdates() {
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::updateExclusions, delayTicks);
+    }
+
+    /**
+     * Checks whether this player should be excluded. If this changed, only
+     * this player is added to or taken out of the live top-lists, unless
+     * they were in one of the top-lists (then the lists are filled again).
+     */
+    private void updateExclusion(UUID uuid) {
+        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+        boolean exclude = ExclusionFilter.isExcluded(config, player);
+        if (!OfflinePlayerHandler.updateExclusion(uuid, exclude)) {
+            return;
+        }
+        MyLogger.logMediumLevelMsg("Updated excluded players after a change in the " +
+                (config.whitelistOnly() ? "whitelist" : "banlist"));
+        LiveTopStats.PlayerValues values = exclude ? null : liveTopStats.getValues(player);
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (liveTopStats.updateExclusion(offlinePlayerHandler.getPlayerRegistry(), uuid, values)) {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, statCalculator::updateLiveTopStats);
+            }
+        });
+    }
+
+    /**
+     * Checks for every player whether they should be excluded.
+     * If anything changed, the live top-lists are filled again.
+     */
+    private void updateExclusions() {
+        if (!OfflinePlayerHandler.updateExclusions(ExclusionFilter.load(config,
+                offlinePlayerHandler.getPlayerRegistry().getUUIDList()))) {
+            return;
+        }
+        MyLogger.logMediumLevelMsg("Updated excluded players after a change in the " +
+                (config.whitelistOnly() ? "whitelist" : "banlist"));
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (liveTopStats.clear()) {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, statCalculator::updateLiveTopStats);
+            }
+        });
+    }
+
+    /**
+     * @return the command label in lower case, without the
+     * leading slash or a namespace (such as "minecraft:")
+     */
+    private static String getLabel(String command) {
+        String label = command.startsWith("/") ? command.substring(1) : command;
+        int colon = label.indexOf(':');
+        if (colon != -1) {
+            label = label.substring(colon + 1);
+        }
+        return label.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -1,28 +1,43 @@
 package com.artemis.the.gr8.playerstats.listeners;
 
-import com.artemis.the.gr8.playerstats.ThreadManager;
+import com.artemis.the.gr8.playerstats.statistic.LiveTopStats;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndexHandler;
+import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
- * Listens for new Players that join, and reloads PlayerStats
- * if someone joins that hasn't joined before.
+ * Listens for new Players that join, and adds them to the players
+ * to include in statistic calculations (and the {@link LiveTopStats})
+ * if they haven't joined before, without reloading everything. Players
+ * that have joined before are included again if they had been away for
+ * longer than the "number-of-days-since-last-joined" setting. Every
+ * player that joins is marked as dirty in the {@link StatIndexHandler}.
+ * Their row in the StatIndex is added by the StatIndexRefresher,
+ * once their statistic file has been written for the first time.
  */
 @ApiStatus.Internal
 public class JoinListener implements Listener {
 
-    private static ThreadManager threadManager;
+    private static StatIndexHandler statIndexHandler;
+    private static LiveTopStats liveTopStats;
 
-    public JoinListener(ThreadManager t) {
-        threadManager = t;
+    public JoinListener(StatIndexHandler s, LiveTopStats l) {
+        statIndexHandler = s;
+        liveTopStats = l;
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent joinEvent) {
-        if (!joinEvent.getPlayer().hasPlayedBefore()) {
-            threadManager.startReloadThread(null);
-        }
+        Player player = joinEvent.getPlayer();
+        statIndexHandler.markDirty(player.getUniqueId());
+        PlayerRegistry players = player.hasPlayedBefore() ?
+                OfflinePlayerHandler.markActive(player.getUniqueId()) :
+                OfflinePlayerHandler.addOfflinePlayer(player.getName(), player.getUniqueId());
+        liveTopStats.addPlayer(players, player);
     }
-}
\ No newline at end of file
+}
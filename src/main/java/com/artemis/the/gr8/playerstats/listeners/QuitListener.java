@@ -0,0 +1,29 @@
+package com.artemis.the.gr8.playerstats.listeners;
+
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndexHandler;
+import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Listens for Players that leave, so the {@link StatIndexHandler}
+ * knows their statistic file can be trusted again once it is saved,
+ * and the time they last played is remembered until the next reload.
+ */
+@ApiStatus.Internal
+public class QuitListener implements Listener {
+
+    private static StatIndexHandler statIndexHandler;
+
+    public QuitListener(StatIndexHandler s) {
+        statIndexHandler = s;
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent quitEvent) {
+        statIndexHandler.markOffline(quitEvent.getPlayer().getUniqueId());
+        OfflinePlayerHandler.markActive(quitEvent.getPlayer().getUniqueId());
+    }
+}
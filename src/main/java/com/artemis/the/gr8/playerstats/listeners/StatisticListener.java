@@ -0,0 +1,29 @@
+package com.artemis.the.gr8.playerstats.listeners;
+
+import com.artemis.the.gr8.playerstats.statistic.LiveTopStats;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerStatisticIncrementEvent;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Listens for changes in Players' statistics, and passes
+ * them on to the {@link LiveTopStats}. This happens very often,
+ * so nothing in here should create new objects or wait for a lock.
+ */
+@ApiStatus.Internal
+public class StatisticListener implements Listener {
+
+    private static LiveTopStats liveTopStats;
+
+    public StatisticListener(LiveTopStats l) {
+        liveTopStats = l;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStatisticIncrement(PlayerStatisticIncrementEvent event) {
+        liveTopStats.update(event.getPlayer().getUniqueId(), event.getStatistic(),
+                event.getMaterial(), event.getEntityType(), event.getNewValue());
+    }
+}
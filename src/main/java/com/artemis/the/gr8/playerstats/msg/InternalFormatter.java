@@ -1,6 +1,8 @@
 package com.artemis.the.gr8.playerstats.msg;
 
 import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
+import com.artemis.the.gr8.playerstats.statistic.PlayerRank;
 import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
 import net.kyori.adventure.text.*;
 import org.jetbrains.annotations.ApiStatus.Internal;
@@ -32,5 +34,18 @@ public interface InternalFormatter {
      * <br> [2.] [player-name] [number]
      * <br> [3.] etc...
      */
-    TextComponent formatAndSaveTopStat(RequestSettings requestSettings, LinkedHashMap<String, Integer> topStats);
+    TextComponent formatAndSaveTopStat(RequestSettings requestSettings, TopStatList topStats);
+
+    /** @return a TextComponent with the following parts:
+     * <br>[player-name]: [#rank] [stat-name] {sub-stat-name} ([number])
+     */
+    TextComponent formatAndSaveRankStat(RequestSettings requestSettings, PlayerRank rank, int playerStat);
+
+    /** @return a TextComponent with the following parts:
+     * <br>[PlayerStats] [Percentiles] [stat-name] [sub-stat-name]
+     * <br> [0%] [number]
+     * <br> [10%] [number]
+     * <br> [25%] etc...
+     */
+    TextComponent formatAndSavePercentileStat(RequestSettings requestSettings, LinkedHashMap<Integer, Integer> percentiles);
 }
\ No newline at end of file
@@ -14,7 +14,9 @@ import com.artemis.the.gr8.playerstats.enums.Target;
 import com.artemis.the.gr8.playerstats.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.enums.Unit;
 
+import com.artemis.the.gr8.playerstats.statistic.PlayerRank;
 import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import org.bukkit.Statistic;
@@ -161,6 +163,37 @@ public final class MessageBuilder implements ApiFormatter {
                         "Please wait for your previous lookup to finish!"));
     }
 
+    public TextComponent tooManyLookups() {
+        return componentFactory.pluginPrefix()
+                .append(space())
+                .append(componentFactory.message().content(
+                        "There are too many lookups waiting right now, please try again in a moment!"));
+    }
+
+    /**
+     * @param position the place in line (starting at 1)
+     * @param waitSeconds the estimated number of seconds until the lookup starts,
+     *                    or 0 if there is no estimate yet
+     */
+    public TextComponent lookupQueued(int position, long waitSeconds) {
+        TextComponent msg = componentFactory.message().content("Your lookup is")
+                .append(space())
+                .append(componentFactory.messageAccent()
+                        .content("#" + position))
+                .append(space())
+                .append(text("in line"));
+        if (waitSeconds > 0) {
+            String seconds = waitSeconds == 1 ? " second" : " seconds";
+            msg = msg.append(text(", it should start in about"))
+                    .append(space())
+                    .append(componentFactory.messageAccent()
+                            .content(waitSeconds + seconds));
+        }
+        return componentFactory.pluginPrefix()
+                .append(space())
+                .append(msg.append(text("...")));
+    }
+
     public TextComponent stillOnShareCoolDown() {
         int waitTime = config.getStatShareWaitingTime();
         String minutes = waitTime == 1 ? " minute" : " minutes";
@@ -330,6 +363,24 @@ public final class MessageBuilder implements ApiFormatter {
         return getFormattingFunction(serverStat, Target.SERVER);
     }
 
+    /**
+     * Returns a BiFunction for a rank statistic. This BiFunction will return
+     * a formattedComponent, the shape of which is determined by the 2 parameters
+     * the BiFunction gets.
+     * <p>- Integer shareCode: if a shareCode is provided, a clickable "share"
+     * button will be added.
+     * <br>- CommandSender sender: if a sender is provided, a signature with
+     * "shared by sender-name" will be added.
+     * <br>- If both parameters are null, the formattedComponent will be returned
+     * as is.
+     */
+    public BiFunction<Integer, CommandSender, TextComponent> formattedRankStatFunction(@NotNull PlayerRank rank, int stat, @NotNull RequestSettings request) {
+        TextComponent statNumberComponent = getStatNumberComponent(stat, Target.RANK, request.getStatistic());
+        TextComponent rankStat = getRankStatComponent(request.getPlayerName(), rank, statNumberComponent,
+                request.getStatistic(), request.getSubStatEntryName());
+        return getFormattingFunction(rankStat, Target.RANK);
+    }
+
     /**
      * Returns a BiFunction for a top statistic. This BiFunction will return
      * a formattedComponent, the shape of which is determined by the 2 parameters
@@ -341,11 +392,35 @@ public final class MessageBuilder implements ApiFormatter {
      * <br>- If both parameters are null, the formattedComponent will be returned
      * as is.
      */
-    public BiFunction<Integer, CommandSender, TextComponent> formattedTopStatFunction(@NotNull LinkedHashMap<String, Integer> topStats, @NotNull RequestSettings request) {
-        final TextComponent title = getTopStatTitle(topStats.size(), request.getStatistic(), request.getSubStatEntryName());
-        final TextComponent list = getTopStatListComponent(topStats, request.getStatistic());
-        final boolean useEnters = config.useEnters(Target.TOP, false);
-        final boolean useEntersForShared = config.useEnters(Target.TOP, true);
+    public BiFunction<Integer, CommandSender, TextComponent> formattedTopStatFunction(@NotNull TopStatList topStats, @NotNull RequestSettings request) {
+        final int offset = request.getTopListOffset();
+        final TextComponent title = (offset > 0) ?
+                getTopStatPageTitleComponent(offset, topStats.size(), request.getStatistic(), request.getSubStatEntryName()) :
+                getTopStatTitle(topStats.size(), request.getStatistic(), request.getSubStatEntryName());
+        final TextComponent list = getTopStatListComponent(topStats, offset, request.getStatistic());
+        return getListFormattingFunction(title, list, Target.TOP);
+    }
+
+    /**
+     * Returns a BiFunction for a percentile statistic. This BiFunction will return
+     * a formattedComponent, the shape of which is determined by the 2 parameters
+     * the BiFunction gets.
+     * <p>- Integer shareCode: if a shareCode is provided, a clickable "share"
+     * button will be added.
+     * <br>- CommandSender sender: if a sender is provided, a signature with
+     * "shared by sender-name" will be added.
+     * <br>- If both parameters are null, the formattedComponent will be returned
+     * as is.
+     */
+    public BiFunction<Integer, CommandSender, TextComponent> formattedPercentileStatFunction(@NotNull LinkedHashMap<Integer, Integer> percentiles, @NotNull RequestSettings request) {
+        final TextComponent title = getPercentileStatTitleComponent(request.getStatistic(), request.getSubStatEntryName());
+        final TextComponent list = getPercentileStatListComponent(percentiles, request.getStatistic());
+        return getListFormattingFunction(title, list, Target.PERCENTILE);
+    }
+
+    private BiFunction<Integer, CommandSender, TextComponent> getListFormattingFunction(TextComponent title, TextComponent list, Target target) {
+        final boolean useEnters = config.useEnters(target, false);
+        final boolean useEntersForShared = config.useEnters(target, true);
 
         return (shareCode, sender) -> {
             TextComponent.Builder topBuilder = text();
@@ -409,6 +484,24 @@ public final class MessageBuilder implements ApiFormatter {
                 .build();
     }
 
+    private TextComponent getRankStatComponent(String playerName, PlayerRank rank, TextComponent statNumberComponent, Statistic statistic, @Nullable String subStatName) {
+        return Component.text()
+                .append(componentFactory.playerName(playerName, Target.RANK)
+                        .append(text(":"))
+                        .append(space()))
+                .append(componentFactory.rankPlace(rank.rank()))
+                .append(space())
+                .append(getStatAndSubStatNameComponent(statistic, subStatName, Target.RANK))
+                .append(space())
+                .append(text("("))
+                .append(statNumberComponent)
+                .append(getStatUnitComponent(statistic, Target.RANK))  //space is provided by statUnitComponent
+                .append(text(")"))
+                .append(space())
+                .append(componentFactory.rankPercentile((int) rank.getPercentile(), Target.RANK))
+                .build();
+    }
+
     private TextComponent getServerStatComponent(TextComponent statNumber, Statistic statistic, @Nullable String subStatName, @Nullable Unit unit) {
         String serverTitle = config.getServerTitle();
         String serverName = config.getServerName();
@@ -450,28 +543,66 @@ public final class MessageBuilder implements ApiFormatter {
         }
     }
 
-    private TextComponent getTopStatListComponent(LinkedHashMap<String, Integer> topStats, Statistic statistic) {
+    /**
+     * @return Top [first-place]-[last-place] [stat-name] [sub-stat-name]
+     */
+    private TextComponent getTopStatPageTitleComponent(int offset, int topListSize, Statistic statistic, @Nullable String subStatName) {
+        return Component.text()
+                .append(componentFactory.title(config.getTopStatsTitle(), Target.TOP))
+                .append(space())
+                .append(componentFactory.titleNumberRange(offset + 1, offset + Math.max(topListSize, 1)))
+                .append(space())
+                .append(getStatAndSubStatNameComponent(statistic, subStatName, Target.TOP))
+                .append(getStatUnitComponent(statistic, Target.TOP))  //space is provided by statUnitComponent
+                .build();
+    }
+
+    /**
+     * @param offset the number of places before the first player in this list
+     */
+    private TextComponent getTopStatListComponent(TopStatList topStats, int offset, Statistic statistic) {
         TextComponent.Builder topList = Component.text();
-        Set<String> playerNames = topStats.keySet();
         boolean useDots = config.useDots();
 
-        int count = 0;
-        for (String playerName : playerNames) {
+        for (int i = 0; i < topStats.size(); i++) {
+            String playerName = topStats.getPlayerName(i);
+            int place = offset + i + 1;
             topList.append(newline());
             if (useDots) {
                 topList.append(getTopStatLineComponent(
-                        ++count, playerName, getStatNumberComponent(topStats.get(playerName), Target.TOP, statistic)));
+                        place, playerName, getStatNumberComponent(topStats.getValue(i), Target.TOP, statistic)));
             } else {
                 topList.append(space())
-                        .append(componentFactory.rankNumber(++count))
+                        .append(componentFactory.rankNumber(place))
                         .append(space())
                         .append(componentFactory.playerName(playerName + ":", Target.TOP))
-                        .append(space()).append(getStatNumberComponent(topStats.get(playerName), Target.TOP, statistic));
+                        .append(space()).append(getStatNumberComponent(topStats.getValue(i), Target.TOP, statistic));
             }
         }
         return topList.build();
     }
 
+    private TextComponent getPercentileStatTitleComponent(Statistic statistic, @Nullable String subStatName) {
+        return Component.text()
+                .append(componentFactory.title("Percentiles", Target.TOP))
+                .append(space())
+                .append(getStatAndSubStatNameComponent(statistic, subStatName, Target.TOP))
+                .append(getStatUnitComponent(statistic, Target.TOP))  //space is provided by statUnitComponent
+                .build();
+    }
+
+    private TextComponent getPercentileStatListComponent(LinkedHashMap<Integer, Integer> percentiles, Statistic statistic) {
+        TextComponent.Builder percentileList = Component.text();
+        for (Map.Entry<Integer, Integer> percentile : percentiles.entrySet()) {
+            percentileList.append(newline())
+                    .append(space())
+                    .append(componentFactory.percentile(percentile.getKey()))
+                    .append(space())
+                    .append(getStatNumberComponent(percentile.getValue(), Target.TOP, statistic));
+        }
+        return percentileList.build();
+    }
+
     private TextComponent getTopStatLineComponent(int positionInTopList, String playerName, TextComponent statNumberComponent) {
         boolean useDots = config.useDots();
         String fullPlayerName = useDots ? playerName : playerName + ":";
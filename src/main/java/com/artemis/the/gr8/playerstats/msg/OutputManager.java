@@ -3,7 +3,9 @@ package com.artemis.the.gr8.playerstats.msg;
 import com.artemis.the.gr8.playerstats.ShareManager;
 import com.artemis.the.gr8.playerstats.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.enums.StandardMessage;
+import com.artemis.the.gr8.playerstats.statistic.PlayerRank;
 import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
 import com.artemis.the.gr8.playerstats.msg.components.BukkitConsoleComponentFactory;
 import com.artemis.the.gr8.playerstats.msg.components.PrideComponentFactory;
 import net.kyori.adventure.platform.bukkit.BukkitAudiences;
@@ -71,13 +73,29 @@ public final class OutputManager implements InternalFormatter {
     }
 
     @Override
-    public TextComponent formatAndSaveTopStat(@NotNull RequestSettings requestSettings, @NotNull LinkedHashMap<String, Integer> topStats) {
+    public TextComponent formatAndSaveTopStat(@NotNull RequestSettings requestSettings, @NotNull TopStatList topStats) {
         BiFunction<Integer, CommandSender, TextComponent> topStatFunction =
                 getMessageBuilder(requestSettings).formattedTopStatFunction(topStats, requestSettings);
 
         return processFunction(requestSettings.getCommandSender(), topStatFunction);
     }
 
+    @Override
+    public TextComponent formatAndSaveRankStat(@NotNull RequestSettings requestSettings, @NotNull PlayerRank rank, int playerStat) {
+        BiFunction<Integer, CommandSender, TextComponent> rankStatFunction =
+                getMessageBuilder(requestSettings).formattedRankStatFunction(rank, playerStat, requestSettings);
+
+        return processFunction(requestSettings.getCommandSender(), rankStatFunction);
+    }
+
+    @Override
+    public TextComponent formatAndSavePercentileStat(@NotNull RequestSettings requestSettings, @NotNull LinkedHashMap<Integer, Integer> percentiles) {
+        BiFunction<Integer, CommandSender, TextComponent> percentileStatFunction =
+                getMessageBuilder(requestSettings).formattedPercentileStatFunction(percentiles, requestSettings);
+
+        return processFunction(requestSettings.getCommandSender(), percentileStatFunction);
+    }
+
     public void sendFeedbackMsg(@NotNull CommandSender sender, StandardMessage message) {
         if (message != null) {
             adventure.sender(sender).sendMessage(standardMessages.get(message)
@@ -90,6 +108,11 @@ public final class OutputManager implements InternalFormatter {
                 .waitAMoment(longWait));
     }
 
+    public void sendFeedbackMsgLookupQueued(@NotNull CommandSender sender, int position, long waitSeconds) {
+        adventure.sender(sender).sendMessage(getMessageBuilder(sender)
+                .lookupQueued(position, waitSeconds));
+    }
+
     public void sendFeedbackMsgMissingSubStat(@NotNull CommandSender sender, Statistic.Type statType) {
         adventure.sender(sender).sendMessage(getMessageBuilder(sender)
                 .missingSubStatName(statType));
@@ -189,6 +212,7 @@ public final class OutputManager implements InternalFormatter {
         standardMessages.put(MISSING_STAT_NAME, (MessageBuilder::missingStatName));
         standardMessages.put(MISSING_PLAYER_NAME, (MessageBuilder::missingPlayerName));
         standardMessages.put(REQUEST_ALREADY_RUNNING, (MessageBuilder::requestAlreadyRunning));
+        standardMessages.put(TOO_MANY_LOOKUPS, (MessageBuilder::tooManyLookups));
         standardMessages.put(STILL_ON_SHARE_COOLDOWN, (MessageBuilder::stillOnShareCoolDown));
         standardMessages.put(RESULTS_ALREADY_SHARED, (MessageBuilder::resultsAlreadyShared));
         standardMessages.put(STAT_RESULTS_TOO_OLD, (MessageBuilder::statResultsTooOld));
@@ -135,12 +135,36 @@ public class ComponentFactory {
                 getStyleFromString(config.getTitleNumberDecoration(true)));
     }
 
+    public TextComponent titleNumberRange(int firstNumber, int lastNumber) {
+        return getComponent(firstNumber + "-" + lastNumber,
+                getColorFromString(config.getTitleNumberDecoration(false)),
+                getStyleFromString(config.getTitleNumberDecoration(true)));
+    }
+
     public TextComponent rankNumber(int number) {
         return getComponent(number + ".",
                 getColorFromString(config.getRankNumberDecoration(false)),
                 getStyleFromString(config.getRankNumberDecoration(true)));
     }
 
+    public TextComponent rankPlace(int rank) {
+        return getComponent("#" + rank,
+                getColorFromString(config.getRankNumberDecoration(false)),
+                getStyleFromString(config.getRankNumberDecoration(true)));
+    }
+
+    public TextComponent percentile(int percentile) {
+        return getComponent(percentile + "%",
+                getColorFromString(config.getRankNumberDecoration(false)),
+                getStyleFromString(config.getRankNumberDecoration(true)));
+    }
+
+    public TextComponent rankPercentile(int percentile, Target target) {
+        return getComponent("(better than " + percentile + "% of players)",
+                getColorFromString(config.getSubStatNameDecoration(target, false)),
+                getStyleFromString(config.getSubStatNameDecoration(target, true)));
+    }
+
     public TextComponent dots(String dots) {
         return getComponent(dots,
                 getColorFromString(config.getDotsDecoration(false)),
@@ -64,7 +64,7 @@ public final class HelpMessage implements TextComponent {
                 .append(text("(a block, item or entity)").color(factory.BRACKETS))
                 .append(newline())
                 .append(spaces).append(arrow).append(space())
-                .append(text("me | player | server | top").color(factory.MSG_HOVER_ACCENT))
+                .append(text("me | player | server | top | rank | percentiles").color(factory.MSG_HOVER_ACCENT))
                 .append(newline())
                 .append(spaces).append(spaces).append(bullet).append(space())
                 .append(text("me:").color(factory.MSG_ACCENT_2A)).append(space())
@@ -80,7 +80,17 @@ public final class HelpMessage implements TextComponent {
                 .append(newline())
                 .append(spaces).append(spaces).append(bullet).append(space())
                 .append(text("top:").color(factory.MSG_ACCENT_2A)).append(space())
-                .append(text("the top").color(factory.BRACKETS).append(space()).append(text(listSize)))
+                .append(text("the top").color(factory.BRACKETS).append(space()).append(text(listSize))
+                        .append(text(" (add \"page 2\" for the next").color(factory.BRACKETS)).append(space()).append(text(listSize))
+                        .append(text(")").color(factory.BRACKETS)))
+                .append(newline())
+                .append(spaces).append(spaces).append(bullet).append(space())
+                .append(text("rank:").color(factory.MSG_ACCENT_2A)).append(space())
+                .append(text("the place a player is in").color(factory.BRACKETS))
+                .append(newline())
+                .append(spaces).append(spaces).append(bullet).append(space())
+                .append(text("percentiles:").color(factory.MSG_ACCENT_2A)).append(space())
+                .append(text("how the numbers are spread out").color(factory.BRACKETS))
                 .append(newline())
                 .append(spaces).append(arrow).append(space())
                 .append(text("{player-name}").color(factory.MSG_HOVER_ACCENT));
@@ -131,13 +141,27 @@ public final class HelpMessage implements TextComponent {
                 .append(text("top").color(factory.MSG_HOVER_ACCENT)
                         .hoverEvent(HoverEvent.showText(
                                 text("See the top").color(factory.MSG_HOVER).append(space())
+                                        .append(text(listSize))
+                                        .append(newline())
+                                        .append(text("Add ").color(factory.MSG_HOVER))
+                                        .append(text("\"page 2\"").color(factory.MSG_HOVER_ACCENT))
+                                        .append(text(" to see the next").color(factory.MSG_HOVER)).append(space())
                                         .append(text(listSize)))))
+                .append(text(" | ").color(factory.MSG_HOVER_ACCENT))
+                .append(text("rank").color(factory.MSG_HOVER_ACCENT)
+                        .hoverEvent(HoverEvent.showText(
+                                text("See the place a player is in, compared to everyone else").color(factory.MSG_HOVER))))
+                .append(text(" | ").color(factory.MSG_HOVER_ACCENT))
+                .append(text("percentiles").color(factory.MSG_HOVER_ACCENT)
+                        .hoverEvent(HoverEvent.showText(
+                                text("See how the numbers of all players are spread out").color(factory.MSG_HOVER))))
                 .append(newline())
                 .append(spaces).append(arrow).append(space())
                 .append(text("player-name").color(factory.MSG_HOVER_ACCENT)
                         .hoverEvent(HoverEvent.showText(
                                 text("In case you typed").color(factory.MSG_HOVER).append(space())
                                         .append(text("\"player\"").color(factory.MSG_HOVER_ACCENT))
+                                        .append(text(" or ")).append(text("\"rank\"").color(factory.MSG_HOVER_ACCENT))
                                                 .append(text(", add the player's name")))));
     }
 
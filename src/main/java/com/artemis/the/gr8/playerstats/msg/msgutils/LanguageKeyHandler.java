@@ -171,6 +171,15 @@ public final class LanguageKeyHandler {
         return key.replace(toReplace, "");
     }
 
+    /**
+     * @param statistic the Statistic to get the name for
+     * @return the name Minecraft uses for this Statistic in its
+     * NameSpacedKey (such as "play_time" for PLAY_ONE_MINUTE)
+     */
+    public static String getStatName(@NotNull Statistic statistic) {
+        return statNameKeys.get(statistic);
+    }
+
     private static @Nullable String convertToNormalStatKey(String statKey) {
         if (isKeyForKillEntity(statKey)) {
             return "stat_type.minecraft.killed";
@@ -0,0 +1,78 @@
+package com.artemis.the.gr8.playerstats.reload;
+
+import com.artemis.the.gr8.playerstats.ThreadManager;
+import com.artemis.the.gr8.playerstats.config.ConfigHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which players should be left out of statistic calculations,
+ * based on the "include-whitelist-only" and "exclude-banned-players"
+ * settings. The whitelist and banlist are turned into a Set of UUIDs
+ * once, so checking a player is a single lookup.
+ */
+public final class ExclusionFilter {
+
+    private ExclusionFilter() {
+    }
+
+    /**
+     * Gets which of these players should be excluded, according to the config.
+     *
+     * @param config the ConfigHandler
+     * @param players the UUIDs of all players that will be checked
+     * @return a Predicate that is true for players that should be excluded
+     */
+    public static Predicate<UUID> load(ConfigHandler config, Collection<UUID> players) {
+        if (config.whitelistOnly()) {
+            return loadWhitelist();
+        }
+        else if (config.excludeBanned()) {
+            Set<UUID> banned;
+            if (Bukkit.getPluginManager().getPlugin("LiteBans") != null) {
+                //LiteBans keeps its own banlist, so every player has to be asked (in the worker pool)
+                banned = ThreadManager.getWorkerPool().submit(() -> players.parallelStream()
+                        .filter(uuid -> Bukkit.getOfflinePlayer(uuid).isBanned())
+                        .collect(Collectors.toSet())).join();
+            } else {
+                banned = getUUIDs(Bukkit.getBannedPlayers());
+            }
+            return banned::contains;
+        }
+        return uuid -> false;
+    }
+
+    /**
+     * @return a Predicate that is true for players that are not on the whitelist
+     */
+    public static Predicate<UUID> loadWhitelist() {
+        Set<UUID> whitelisted = getUUIDs(Bukkit.getWhitelistedPlayers());
+        return uuid -> !whitelisted.contains(uuid);
+    }
+
+    /**
+     * Checks whether a single player should be excluded, according to the config.
+     *
+     * @param config the ConfigHandler
+     * @param player the player to check
+     * @return true if this player should be excluded
+     */
+    public static boolean isExcluded(ConfigHandler config, OfflinePlayer player) {
+        if (config.whitelistOnly()) {
+            return !player.isWhitelisted();
+        }
+        return config.excludeBanned() && player.isBanned();
+    }
+
+    private static Set<UUID> getUUIDs(Set<OfflinePlayer> offlinePlayers) {
+        return offlinePlayers.stream()
+                .map(OfflinePlayer::getUniqueId)
+                .collect(Collectors.toSet());
+    }
+}
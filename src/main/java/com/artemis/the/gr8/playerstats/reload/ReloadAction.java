@@ -1,9 +1,7 @@
 package com.artemis.the.gr8.playerstats.reload;
 
-import com.artemis.the.gr8.playerstats.ThreadManager;
 import com.artemis.the.gr8.playerstats.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
-import com.artemis.the.gr8.playerstats.utils.UnixTimeHandler;
 import org.bukkit.OfflinePlayer;
 
 import java.util.UUID;
@@ -15,56 +13,56 @@ import java.util.concurrent.RecursiveAction;
  */
 final class ReloadAction extends RecursiveAction {
 
-    private static int threshold;
-
     private final OfflinePlayer[] players;
     private final int start;
     private final int end;
+    private final int threshold;
 
-    private final int lastPlayedLimit;
     private final ConcurrentHashMap<String, UUID> offlinePlayerUUIDs;
+    private final ConcurrentHashMap<UUID, Long> lastPlayedTimes;
 
     /**
-     * Fills a ConcurrentHashMap with PlayerNames and UUIDs for all OfflinePlayers
-     * that should be included in statistic calculations.
+     * Fills a ConcurrentHashMap with PlayerNames and UUIDs for all OfflinePlayers,
+     * and another one with the time each of them last played. Which of these
+     * players are included in statistic calculations is decided afterwards,
+     * by the {@link OfflinePlayerHandler}.
      *
      * @param players array of all OfflinePlayers (straight from Bukkit)
-     * @param lastPlayedLimit whether to set a limit based on last-played-date
      * @param offlinePlayerUUIDs the ConcurrentHashMap to put playerNames and UUIDs in
+     * @param lastPlayedTimes the ConcurrentHashMap to put UUIDs and last-played-times in
+     * @param threshold the number of players below which this task should not be split any further
      * @see OfflinePlayerHandler
      */
-    public ReloadAction(OfflinePlayer[] players,
-                        int lastPlayedLimit, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs) {
+    public ReloadAction(OfflinePlayer[] players, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs,
+                        ConcurrentHashMap<UUID, Long> lastPlayedTimes, int threshold) {
 
-       this(players, 0, players.length, lastPlayedLimit, offlinePlayerUUIDs);
+       this(players, 0, players.length, offlinePlayerUUIDs, lastPlayedTimes, threshold);
     }
 
-    private ReloadAction(OfflinePlayer[] players, int start, int end,
-                           int lastPlayedLimit, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs) {
-        threshold = ThreadManager.getTaskThreshold();
-
+    private ReloadAction(OfflinePlayer[] players, int start, int end, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs,
+                         ConcurrentHashMap<UUID, Long> lastPlayedTimes, int threshold) {
         this.players = players;
         this.start = start;
         this.end = end;
+        this.threshold = threshold;
 
-        this.lastPlayedLimit = lastPlayedLimit;
         this.offlinePlayerUUIDs = offlinePlayerUUIDs;
-
-        MyLogger.subActionCreated(Thread.currentThread().getName());
+        this.lastPlayedTimes = lastPlayedTimes;
     }
 
     @Override
     protected void compute() {
         final int length = end - start;
-        if (length < threshold) {
+        if (length <= threshold) {
             process();
         }
         else {
+            MyLogger.subActionCreated(Thread.currentThread().getName());
             final int split = length / 2;
             final ReloadAction subTask1 = new ReloadAction(players, start, (start + split),
-                    lastPlayedLimit, offlinePlayerUUIDs);
+                    offlinePlayerUUIDs, lastPlayedTimes, threshold);
             final ReloadAction subTask2 = new ReloadAction(players, (start + split), end,
-                    lastPlayedLimit, offlinePlayerUUIDs);
+                    offlinePlayerUUIDs, lastPlayedTimes, threshold);
 
             //queue and compute all subtasks in the right order
             invokeAll(subTask1, subTask2);
@@ -72,13 +70,13 @@ final class ReloadAction extends RecursiveAction {
     }
 
     private void process() {
+        MyLogger.actionRunning(Thread.currentThread().getName());
         for (int i = start; i < end; i++) {
             OfflinePlayer player = players[i];
             String playerName = player.getName();
-            MyLogger.actionRunning(Thread.currentThread().getName());
-            if (playerName != null &&
-                    (lastPlayedLimit == 0 || UnixTimeHandler.hasPlayedSince(lastPlayedLimit, player.getLastPlayed()))) {
+            if (playerName != null) {
                 offlinePlayerUUIDs.put(playerName, player.getUniqueId());
+                lastPlayedTimes.put(player.getUniqueId(), player.getLastPlayed());
             }
         }
     }
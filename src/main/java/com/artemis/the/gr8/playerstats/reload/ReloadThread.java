@@ -1,12 +1,13 @@
 package com.artemis.the.gr8.playerstats.reload;
 
+import com.artemis.the.gr8.playerstats.Main;
 import com.artemis.the.gr8.playerstats.ShareManager;
 import com.artemis.the.gr8.playerstats.ThreadManager;
 import com.artemis.the.gr8.playerstats.enums.StandardMessage;
 import com.artemis.the.gr8.playerstats.msg.OutputManager;
 import com.artemis.the.gr8.playerstats.msg.msgutils.LanguageKeyHandler;
 import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
-import com.artemis.the.gr8.playerstats.statistic.StatThread;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndexHandler;
 import com.artemis.the.gr8.playerstats.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
 import com.artemis.the.gr8.playerstats.config.ConfigHandler;
@@ -15,11 +16,8 @@ import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.Nullable;
-import java.util.Arrays;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 
 /** The Thread that is in charge of reloading PlayerStats. */
@@ -29,16 +27,14 @@ public final class ReloadThread extends Thread {
     private static OutputManager outputManager;
 
     private final int reloadThreadID;
-    private final StatThread statThread;
 
     private final CommandSender sender;
 
-    public ReloadThread(ConfigHandler c, OutputManager m, int ID, @Nullable StatThread s, @Nullable CommandSender se) {
+    public ReloadThread(ConfigHandler c, OutputManager m, int ID, @Nullable CommandSender se) {
         config = c;
         outputManager = m;
 
         reloadThreadID = ID;
-        statThread = s;
         sender = se;
 
         this.setName("ReloadThread-" + reloadThreadID);
@@ -46,29 +42,21 @@ public final class ReloadThread extends Thread {
     }
 
     /**
-     * This method will perform a series of tasks. If a {@link StatThread}
-     * is still running, it will join the statThread and wait for it to finish.
-     * Then, it will reload the config, update the offlinePlayerList in the
-     * {@link OfflinePlayerHandler}, update the {@link DebugLevel}, update
+     * This method will perform a series of tasks. It will reload the config,
+     * build a new offlinePlayerList and replace the old one in the
+     * {@link OfflinePlayerHandler} (and on first start-up, load the
+     * {@link StatIndexHandler StatIndex}), update the {@link DebugLevel}, update
      * the share-settings in {@link ShareManager} and topListSize-settings
      * in {@link StatCalculator}, and update the MessageBuilders in the
-     * {@link OutputManager}.
+     * {@link OutputManager}. Lookups that are running while this happens
+     * finish with the player-list they started with, so a reload never
+     * waits for them, and they never wait for a reload.
      */
     @Override
     public void run() {
         long time = System.currentTimeMillis();
         MyLogger.logHighLevelMsg(this.getName() + " started!");
 
-        if (statThread != null && statThread.isAlive()) {
-            try {
-                MyLogger.logLowLevelMsg(this.getName() + ": Waiting for " + statThread.getName() + " to finish up...");
-                statThread.join();
-            } catch (InterruptedException e) {
-                MyLogger.logException(e, "ReloadThread", "run(), trying to join " + statThread.getName());
-                throw new RuntimeException(e);
-            }
-        }
-
         if (reloadThreadID != 1 && config.reloadConfig()) {  //during a reload
             MyLogger.logLowLevelMsg("Reloading!");
             reloadEverything();
@@ -79,7 +67,9 @@ public final class ReloadThread extends Thread {
         }
         else {  //during first start-up
             MyLogger.setDebugLevel(config.getDebugLevel());
-            OfflinePlayerHandler.updateOfflinePlayerList(loadOfflinePlayers());
+            updateOfflinePlayerList();
+            Main.getStatIndexHandler().loadOrBuild();
+            Main.getStatCalculator().updateLiveTopStats();
             ThreadManager.recordCalcTime(System.currentTimeMillis() - time);
         }
     }
@@ -88,46 +78,48 @@ public final class ReloadThread extends Thread {
         MyLogger.setDebugLevel(config.getDebugLevel());
         LanguageKeyHandler.reloadFile();
         OutputManager.updateMessageBuilders();
-        OfflinePlayerHandler.updateOfflinePlayerList(loadOfflinePlayers());
+        updateOfflinePlayerList();
+        Main.getStatCalculator().clearRecentResults();
+        Main.getStatCalculator().updateLiveTopStats();
         ShareManager.updateSettings(config);
     }
 
-    private ConcurrentHashMap<String, UUID> loadOfflinePlayers() {
+    /**
+     * Loads all players, and marks the ones that are not whitelisted or
+     * are banned (depending on the config) as excluded. Excluded players stay
+     * in the {@link OfflinePlayerHandler}, so they can be included again
+     * when they are pardoned or whitelisted, without another reload.
+     * The same goes for players that haven't joined within the
+     * "number-of-days-since-last-joined" setting.
+     */
+    private void updateOfflinePlayerList() {
+        ConcurrentHashMap<UUID, Long> lastPlayedTimes = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, UUID> playerMap = loadOfflinePlayers(lastPlayedTimes);
+
         long time = System.currentTimeMillis();
+        Predicate<UUID> isExcluded = ExclusionFilter.load(config, playerMap.values());
+        MyLogger.logMediumLevelTask("ReloadThread",
+                "retrieved whitelist and banlist", time);
+        OfflinePlayerHandler.updateOfflinePlayerList(playerMap, lastPlayedTimes, isExcluded, config.getLastPlayedLimit());
+    }
 
-        OfflinePlayer[] offlinePlayers;
-        if (config.whitelistOnly()) {
-            offlinePlayers = Bukkit.getWhitelistedPlayers().toArray(OfflinePlayer[]::new);
-            MyLogger.logMediumLevelTask("ReloadThread",
-                    "retrieved whitelist", time);
-        }
-        else if (config.excludeBanned()) {
-            if (Bukkit.getPluginManager().getPlugin("LiteBans") != null) {
-                offlinePlayers = Arrays.stream(Bukkit.getOfflinePlayers())
-                        .parallel()
-                        .filter(Predicate.not(OfflinePlayer::isBanned))
-                        .toArray(OfflinePlayer[]::new);
-            } else {
-                Set<OfflinePlayer> bannedPlayers = Bukkit.getBannedPlayers();
-                offlinePlayers = Arrays.stream(Bukkit.getOfflinePlayers())
-                        .parallel()
-                        .filter(offlinePlayer -> !bannedPlayers.contains(offlinePlayer)).toArray(OfflinePlayer[]::new);
-            }
-            MyLogger.logMediumLevelTask("ReloadThread",
-                    "retrieved banlist", time);
-        }
-        else {
-            offlinePlayers = Bukkit.getOfflinePlayers();
-            MyLogger.logMediumLevelTask("ReloadThread",
-                    "retrieved list of Offline Players", time);
-        }
+    private ConcurrentHashMap<String, UUID> loadOfflinePlayers(ConcurrentHashMap<UUID, Long> lastPlayedTimes) {
+        long time = System.currentTimeMillis();
+
+        OfflinePlayer[] offlinePlayers = Bukkit.getOfflinePlayers();
+        MyLogger.logMediumLevelTask("ReloadThread",
+                "retrieved list of Offline Players", time);
 
         int size = offlinePlayers != null ? offlinePlayers.length : 16;
         ConcurrentHashMap<String, UUID> playerMap = new ConcurrentHashMap<>(size);
 
-        ReloadAction task = new ReloadAction(offlinePlayers, config.getLastPlayedLimit(), playerMap);
-        MyLogger.actionCreated((offlinePlayers != null) ? offlinePlayers.length : 0);
-        ForkJoinPool.commonPool().invoke(task);
+        int playerCount = (offlinePlayers != null) ? offlinePlayers.length : 0;
+        ReloadAction task = new ReloadAction(offlinePlayers, playerMap, lastPlayedTimes,
+                ThreadManager.getTaskThreshold(playerCount, ThreadManager.getReloadCostPerPlayer()));
+        MyLogger.actionCreated(playerCount);
+        long startTime = System.nanoTime();
+        ThreadManager.getWorkerPool().invoke(task);
+        ThreadManager.recordReloadCost(playerCount, System.nanoTime() - startTime);
         MyLogger.actionFinished();
 
         MyLogger.logLowLevelTask("ReloadThread",
@@ -0,0 +1,183 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The values of all included players for a single statistic, sorted from
+ * low to high, that are kept up-to-date together with a {@link LiveTopList}.
+ * This way, the place of a player (and the percentiles) can be found with
+ * a binary search, without sorting the values of all players again. When a
+ * player's value changes, only the values between their old and new value
+ * have to move one place, which is usually only a few of them.
+ * Like the LiveTopList, this is only changed by the main thread, and
+ * read by other threads without locking, using a sequence number.
+ */
+final class LiveRanking {
+
+    //only used by the main thread
+    private int[] values;
+
+    private int[] sortedValues;
+    private int size;
+    private volatile int sequence;
+
+    /**
+     * @param values the current value for each player (this array is not changed)
+     * @param includedValues the values of all players that are included
+     */
+    LiveRanking(int[] values, int[] includedValues) {
+        this.values = values.clone();
+        sortedValues = includedValues.clone();
+        RadixSort.sort(sortedValues);
+        size = sortedValues.length;
+    }
+
+    /**
+     * Changes the value for a player that is already included.
+     * This should only be called from the main thread.
+     *
+     * @param row the ordinal of the player
+     * @param value the new value for this player
+     */
+    void update(int row, int value) {
+        int oldValue = values[row];
+        if (oldValue == value) {
+            return;
+        }
+        values[row] = value;
+
+        int nextSequence = sequence + 1;
+        sequence = nextSequence;
+        VarHandle.storeStoreFence();
+
+        if (value > oldValue) {
+            //move the values between the old and the new value one place down
+            int from = StatCalculator.getFirstPosition(sortedValues, size, oldValue + 1L) - 1;
+            int to = StatCalculator.getFirstPosition(sortedValues, size, value) - 1;
+            System.arraycopy(sortedValues, from + 1, sortedValues, from, to - from);
+            sortedValues[to] = value;
+        } else {
+            int from = StatCalculator.getFirstPosition(sortedValues, size, oldValue);
+            int to = StatCalculator.getFirstPosition(sortedValues, size, value + 1L);
+            System.arraycopy(sortedValues, to, sortedValues, to + 1, from - to);
+            sortedValues[to] = value;
+        }
+
+        sequence = nextSequence + 1;
+    }
+
+    /**
+     * Adds the value for a player that is now included, for example because
+     * they joined for the first time. This should only be called from the main thread.
+     *
+     * @param row the ordinal of the player
+     * @param value the current value for this player
+     */
+    void add(int row, int value) {
+        if (row >= values.length) {
+            values = Arrays.copyOf(values, Math.max(row + 1, values.length + (values.length >> 1)));
+        }
+        values[row] = value;
+        //a bigger array is filled before it is put in place, so readers never see it half-copied
+        int[] newSortedValues = sortedValues;
+        if (size == sortedValues.length) {
+            newSortedValues = Arrays.copyOf(sortedValues, Math.max(16, size + (size >> 1)));
+        }
+        int position = StatCalculator.getFirstPosition(sortedValues, size, value + 1L);
+
+        int nextSequence = sequence + 1;
+        sequence = nextSequence;
+        VarHandle.storeStoreFence();
+
+        System.arraycopy(newSortedValues, position, newSortedValues, position + 1, size - position);
+        newSortedValues[position] = value;
+        sortedValues = newSortedValues;
+        size++;
+
+        sequence = nextSequence + 1;
+    }
+
+    /**
+     * Removes the values for players that are no longer included,
+     * in a single pass over all values. This should only be called from the main thread.
+     *
+     * @param rows the ordinals of the players to remove
+     */
+    void remove(int[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        int[] removedValues = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            removedValues[i] = values[rows[i]];
+        }
+        RadixSort.sort(removedValues);
+
+        int nextSequence = sequence + 1;
+        sequence = nextSequence;
+        VarHandle.storeStoreFence();
+
+        //both arrays are sorted, and every removed value is in sortedValues
+        int newSize = 0;
+        int removed = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed < removedValues.length && removedValues[removed] == sortedValues[i]) {
+                removed++;
+            } else {
+                sortedValues[newSize++] = sortedValues[i];
+            }
+        }
+        size = newSize;
+
+        sequence = nextSequence + 1;
+    }
+
+    /**
+     * Gets the place of a player with this value. This can be called from any thread.
+     *
+     * @param playerStat the statistic number for the player
+     * @return the place a player with this number is in
+     */
+    PlayerRank getRank(int playerStat) {
+        while (true) {
+            int currentSequence = sequence;
+            if ((currentSequence & 1) == 0) {
+                int[] currentValues = sortedValues;
+                int currentSize = Math.min(size, currentValues.length);
+                int playersBelow = StatCalculator.getFirstPosition(currentValues, currentSize, playerStat);
+                int playersAbove = currentSize - StatCalculator.getFirstPosition(currentValues, currentSize, playerStat + 1L);
+                VarHandle.acquireFence();
+                if (sequence == currentSequence) {
+                    return new PlayerRank(playersAbove + 1, playersBelow, currentSize);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Gets the value at each of these percentiles. This can be called from any thread.
+     *
+     * @param percentiles the percentiles (from 0 to 100)
+     * @return the value at each percentile, in the same order
+     */
+    int[] getValuesAt(int[] percentiles) {
+        int[] percentileValues = new int[percentiles.length];
+        while (true) {
+            int currentSequence = sequence;
+            if ((currentSequence & 1) == 0) {
+                int[] currentValues = sortedValues;
+                int currentSize = Math.min(size, currentValues.length);
+                for (int i = 0; i < percentiles.length; i++) {
+                    percentileValues[i] = StatCalculator.getValueAt(currentValues, currentSize, percentiles[i]);
+                }
+                VarHandle.acquireFence();
+                if (sequence == currentSequence) {
+                    return percentileValues;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.Nullable;
+
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The top-list for a single statistic, that is kept up-to-date
+ * with every change Bukkit reports for this statistic. Because
+ * statistics only go up, the top-list stays exact without ever looking
+ * at players outside of it again: a player can only enter the list,
+ * or move up in it. The list is only changed by the main thread, and
+ * can be read by any other thread without locking: the main thread
+ * increases the sequence number before and after every change, and
+ * a reader tries again if the number was odd or changed while reading.
+ * Every list also keeps a {@link LiveRanking} with the values of all
+ * included players, for rank- and percentile-statistics.
+ */
+final class LiveTopList {
+
+    private final Statistic statistic;
+    private final Material material;
+    private final EntityType entityType;
+
+    private volatile PlayerRegistry players;
+    private final Map<UUID, Integer> rows;
+
+    private final LiveRanking ranking;
+    private final int[] topRows;
+    private final int[] topValues;
+    private int topSize;
+    private volatile int sequence;
+
+    /**
+     * @param statistic the Statistic this list is for
+     * @param material the block or item for this statistic, if it has one
+     * @param entityType the entityType for this statistic, if it has one
+     * @param players the players that can be in this list
+     * @param rows the ordinal for each player's UUID (this map should only be changed by the main thread)
+     * @param values the current value for each player in players
+     * @param includedValues the values of the players that are included
+     * @param capacity the maximum size of the top-list
+     */
+    LiveTopList(Statistic statistic, @Nullable Material material, @Nullable EntityType entityType,
+                PlayerRegistry players, Map<UUID, Integer> rows, int[] values, int[] includedValues, int capacity) {
+        this.statistic = statistic;
+        this.material = material;
+        this.entityType = entityType;
+        this.players = players;
+        this.rows = rows;
+        ranking = new LiveRanking(values, includedValues);
+
+        topRows = new int[capacity];
+        topValues = new int[capacity];
+        for (int row : TopStatSelector.selectTop(values, values.length, capacity)) {
+            if (values[row] <= 0) {
+                break;
+            }
+            topRows[topSize] = row;
+            topValues[topSize] = values[row];
+            topSize++;
+        }
+    }
+
+    boolean matches(Statistic statistic, @Nullable Material material, @Nullable EntityType entityType) {
+        return this.statistic == statistic && this.material == material && this.entityType == entityType;
+    }
+
+    int getCapacity() {
+        return topRows.length;
+    }
+
+    LiveRanking getRanking() {
+        return ranking;
+    }
+
+    /**
+     * @return the current value of this list's statistic for this player
+     */
+    int getValue(OfflinePlayer player) {
+        return switch (statistic.getType()) {
+            case UNTYPED -> player.getStatistic(statistic);
+            case ENTITY -> player.getStatistic(statistic, entityType);
+            case BLOCK, ITEM -> player.getStatistic(statistic, material);
+        };
+    }
+
+    /**
+     * Replaces the players with a registry that has more players added to it
+     * (or fewer players that are active), so the new players can enter this list.
+     * This should only be called from the main thread, before the new players
+     * are put in the rows.
+     *
+     * @param players a registry that is an extension of the current one
+     */
+    void setPlayers(PlayerRegistry players) {
+        this.players = players;
+    }
+
+    /**
+     * Checks whether every player in this list is included in the given registry.
+     * This should only be called from the main thread.
+     */
+    boolean includesAll(PlayerRegistry players) {
+        for (int i = 0; i < topSize; i++) {
+            if (!players.isIncluded(topRows[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Changes the value for this player, if they are included in this list.
+     * This should only be called from the main thread, and creates no new objects.
+     *
+     * @param uuid the UUID of the player
+     * @param value the new value for this player
+     */
+    void update(UUID uuid, int value) {
+        Integer row = rows.get(uuid);
+        if (row != null) {
+            ranking.update(row, value);
+            update(row, value);
+        }
+    }
+
+    /**
+     * Adds a player that is now included (and has just been put in the rows)
+     * to the ranking, and to this list if their value is high enough.
+     * This should only be called from the main thread.
+     *
+     * @param row the ordinal of the player
+     * @param value the current value for this player
+     */
+    void addPlayer(int row, int value) {
+        ranking.add(row, value);
+        update(row, value);
+    }
+
+    /**
+     * Removes players that are no longer included from the ranking. They
+     * should not be in this list (see {@link #includesAll(PlayerRegistry)}).
+     * This should only be called from the main thread.
+     *
+     * @param rows the ordinals of the players to remove
+     */
+    void removePlayers(int[] rows) {
+        ranking.remove(rows);
+    }
+
+    private void update(int row, int value) {
+        int position = indexOf(row);
+        if (position == -1) {
+            if (value <= 0 || topRows.length == 0) {
+                return;
+            }
+            else if (topSize < topRows.length) {
+                position = topSize;
+            }
+            else if (isHigher(value, row, topValues[topSize - 1], topRows[topSize - 1])) {
+                position = topSize - 1;
+            }
+            else {
+                return;
+            }
+        }
+
+        int nextSequence = sequence + 1;
+        sequence = nextSequence;
+        VarHandle.storeStoreFence();
+
+        if (position == topSize) {
+            topSize++;
+        }
+        topRows[position] = row;
+        topValues[position] = value;
+        while (position > 0 && isHigher(value, row, topValues[position - 1], topRows[position - 1])) {
+            move(position - 1, position);
+            position--;
+        }
+        while (position < topSize - 1 && isHigher(topValues[position + 1], topRows[position + 1], value, row)) {
+            move(position + 1, position);
+            position++;
+        }
+        topRows[position] = row;
+        topValues[position] = value;
+
+        sequence = nextSequence + 1;
+    }
+
+    /**
+     * Gets (part of) the current top-list. This can be called from any thread.
+     *
+     * @param offset the number of places to skip at the start of the list
+     * @param topListSize the maximum number of players to include
+     * @return the names and values of the (at most) topListSize players after the offset
+     */
+    TopStatList getTopStats(int offset, int topListSize) {
+        int[] rowCopy = new int[topRows.length];
+        int[] valueCopy = new int[topValues.length];
+        int size;
+        while (true) {
+            int currentSequence = sequence;
+            if ((currentSequence & 1) == 0) {
+                size = Math.max(0, Math.min(topSize - offset, topListSize));
+                System.arraycopy(topRows, offset, rowCopy, 0, size);
+                System.arraycopy(topValues, offset, valueCopy, 0, size);
+                VarHandle.acquireFence();
+                if (sequence == currentSequence) {
+                    break;
+                }
+            }
+            Thread.onSpinWait();
+        }
+
+        //the registry is read after the rows, so it knows every player in them
+        PlayerRegistry currentPlayers = players;
+        String[] topNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            topNames[i] = currentPlayers.getPlayerName(rowCopy[i]);
+        }
+        return new TopStatList(topNames, size == valueCopy.length ? valueCopy : Arrays.copyOf(valueCopy, size));
+    }
+
+    private int indexOf(int row) {
+        for (int i = 0; i < topSize; i++) {
+            if (topRows[i] == row) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void move(int from, int to) {
+        topRows[to] = topRows[from];
+        topValues[to] = topValues[from];
+    }
+
+    /**
+     * Equal values are ordered by row, the same way the {@link TopStatSelector} does.
+     */
+    private static boolean isHigher(int value, int row, int otherValue, int otherRow) {
+        return value > otherValue || (value == otherValue && row < otherRow);
+    }
+}
@@ -0,0 +1,492 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.enums.Target;
+import com.artemis.the.gr8.playerstats.statistic.request.RequestHandler;
+import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
+import com.artemis.the.gr8.playerstats.utils.EnumHandler;
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.UUID;
+
+/**
+ * Keeps the top-lists for the statistics in the "live-top-statistics"
+ * setting up-to-date while players are online, so these top-lists can be
+ * given right away, without going over all players. The lists are
+ * filled once with a full calculation (on start-up and after every reload),
+ * and from then on, every change Bukkit reports is applied to them.
+ */
+public final class LiveTopStats {
+
+    private static final LiveTopList[] noTopLists = new LiveTopList[0];
+
+    /**
+     * The statistics Bukkit never fires a PlayerStatisticIncrementEvent for
+     * (because they change too often), so a live top-list for them would
+     * never change. The time-since statistics are also reset to 0.
+     */
+    private static final EnumSet<Statistic> untrackableStatistics = EnumSet.of(
+            Statistic.PLAY_ONE_MINUTE, Statistic.TOTAL_WORLD_TIME, Statistic.SNEAK_TIME,
+            Statistic.TIME_SINCE_DEATH, Statistic.TIME_SINCE_REST,
+            Statistic.WALK_ONE_CM, Statistic.CROUCH_ONE_CM, Statistic.SPRINT_ONE_CM,
+            Statistic.WALK_ON_WATER_ONE_CM, Statistic.WALK_UNDER_WATER_ONE_CM, Statistic.SWIM_ONE_CM,
+            Statistic.FALL_ONE_CM, Statistic.CLIMB_ONE_CM, Statistic.FLY_ONE_CM, Statistic.AVIATE_ONE_CM,
+            Statistic.MINECART_ONE_CM, Statistic.BOAT_ONE_CM, Statistic.PIG_ONE_CM,
+            Statistic.HORSE_ONE_CM, Statistic.STRIDER_ONE_CM);
+
+    private final Main plugin;
+    private final ConfigHandler config;
+    private final OfflinePlayerHandler offlinePlayerHandler;
+    private volatile EnumMap<Statistic, LiveTopList[]> topLists;
+
+    //only used by the main thread
+    private PlayerRegistry players;
+    private HashMap<UUID, Integer> rows;
+
+    public LiveTopStats(Main plugin, ConfigHandler config, OfflinePlayerHandler offlinePlayerHandler) {
+        this.plugin = plugin;
+        this.config = config;
+        this.offlinePlayerHandler = offlinePlayerHandler;
+        topLists = new EnumMap<>(Statistic.class);
+    }
+
+    /**
+     * Applies a change in a player's statistic to the top-list for this
+     * statistic, if there is one. This should only be called from the
+     * main thread, and creates no new objects.
+     *
+     * @param uuid the UUID of the player
+     * @param statistic the Statistic that changed
+     * @param material the block or item for this statistic, or null
+     * @param entityType the entityType for this statistic, or null
+     * @param newValue the new value of this statistic for this player
+     */
+    public void update(UUID uuid, Statistic statistic, @Nullable Material material,
+                       @Nullable EntityType entityType, int newValue) {
+        LiveTopList[] lists = topLists.get(statistic);
+        if (lists != null) {
+            for (LiveTopList list : lists) {
+                if (list.matches(statistic, material, entityType)) {
+                    list.update(uuid, newValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the live top-lists know about a player that has just joined, and
+     * has been added to the {@link PlayerRegistry} (or is included in it again),
+     * so this player can enter the lists from now on. The player's current
+     * values are offered to the lists right away, because a player that
+     * was not included before can already have numbers that belong in them.
+     * If the lists were made
+     * for a different list of players (because a reload is replacing them),
+     * nothing happens. This should only be called from the main thread.
+     *
+     * @param newPlayers the registry that includes the player
+     * @param player the player that joined
+     */
+    public void addPlayer(PlayerRegistry newPlayers, Player player) {
+        int ordinal = newPlayers.getOrdinal(player.getUniqueId());
+        if (players == null || ordinal == -1 || !newPlayers.isIncluded(ordinal) || !newPlayers.isExtensionOf(players)) {
+            return;
+        }
+        for (LiveTopList[] lists : topLists.values()) {
+            for (LiveTopList list : lists) {
+                list.setPlayers(newPlayers);
+            }
+        }
+        players = newPlayers;
+        boolean wasIncluded = rows.put(player.getUniqueId(), ordinal) != null;
+        for (LiveTopList[] lists : topLists.values()) {
+            for (LiveTopList list : lists) {
+                if (wasIncluded) {
+                    list.update(player.getUniqueId(), list.getValue(player));
+                } else {
+                    list.addPlayer(ordinal, list.getValue(player));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the live top-lists know that some players are no longer included,
+     * because they haven't joined for too long. Players that leave can't
+     * be taken out of a list, so if any of them are in one, all lists are
+     * removed (and should be filled again). Otherwise, they are only taken
+     * out of the rankings. This should only be called from the main thread.
+     *
+     * @param newPlayers the current registry (if a reload has replaced the
+     *                   registry the lists were made for, nothing happens)
+     * @return true if the lists have been removed
+     */
+    public boolean removeInactivePlayers(PlayerRegistry newPlayers) {
+        if (players == null || !newPlayers.isExtensionOf(players)) {
+            return false;
+        }
+        for (LiveTopList[] lists : topLists.values()) {
+            for (LiveTopList list : lists) {
+                if (!list.includesAll(newPlayers)) {
+                    return clear();
+                }
+            }
+        }
+        int[] removedRows = new int[rows.size()];
+        int removedCount = 0;
+        Iterator<Integer> iterator = rows.values().iterator();
+        while (iterator.hasNext()) {
+            int row = iterator.next();
+            if (!newPlayers.isIncluded(row)) {
+                removedRows[removedCount++] = row;
+                iterator.remove();
+            }
+        }
+        removedRows = Arrays.copyOf(removedRows, removedCount);
+        for (LiveTopList[] lists : topLists.values()) {
+            for (LiveTopList list : lists) {
+                list.removePlayers(removedRows);
+                list.setPlayers(newPlayers);
+            }
+        }
+        players = newPlayers;
+        return false;
+    }
+
+    /**
+     * Gets the current values of a player for every live top-list, so they can
+     * be added to the lists when they are no longer excluded. For a player
+     * that is offline, Bukkit reads these from their statistic file,
+     * so this should not be called from the main thread.
+     *
+     * @param player the player to get the values for
+     * @return the values, for {@link #updateExclusion(PlayerRegistry, UUID, PlayerValues)}
+     */
+    public PlayerValues getValues(OfflinePlayer player) {
+        EnumMap<Statistic, LiveTopList[]> currentTopLists = topLists;
+        int[] values = new int[currentTopLists.values().stream().mapToInt(lists -> lists.length).sum()];
+        int position = 0;
+        for (LiveTopList[] lists : currentTopLists.values()) {
+            for (LiveTopList list : lists) {
+                values[position++] = list.getValue(player);
+            }
+        }
+        return new PlayerValues(currentTopLists, values);
+    }
+
+    /**
+     * Lets the live top-lists know that a player has been excluded from
+     * calculations, or is included again. An excluded player is taken out of
+     * the rankings, unless they are in a top-list: their place there can't
+     * be filled without going over all players, so then all lists are removed
+     * (and should be filled again). A player that is included again is added
+     * with their current values. This should only be called from the main thread.
+     *
+     * @param newPlayers the current registry
+     * @param uuid the UUID of the player whose exclusion changed
+     * @param values the player's values from {@link #getValues(OfflinePlayer)},
+     *               or null if they are now excluded
+     * @return true if the lists have been removed
+     */
+    public boolean updateExclusion(PlayerRegistry newPlayers, UUID uuid, @Nullable PlayerValues values) {
+        int ordinal = newPlayers.getOrdinal(uuid);
+        if (players == null || ordinal == -1 || !newPlayers.isExtensionOf(players)) {
+            return false;
+        }
+        boolean included = newPlayers.isIncluded(ordinal);
+        if (included == rows.containsKey(uuid)) {
+            return false;
+        }
+        if (included) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null && (values == null || values.topLists != topLists)) {
+                return clear();
+            }
+            for (LiveTopList[] lists : topLists.values()) {
+                for (LiveTopList list : lists) {
+                    list.setPlayers(newPlayers);
+                }
+            }
+            rows.put(uuid, ordinal);
+            int position = 0;
+            for (LiveTopList[] lists : topLists.values()) {
+                for (LiveTopList list : lists) {
+                    list.addPlayer(ordinal, player != null ? list.getValue(player) : values.values[position]);
+                    position++;
+                }
+            }
+        } else {
+            for (LiveTopList[] lists : topLists.values()) {
+                for (LiveTopList list : lists) {
+                    if (!list.includesAll(newPlayers)) {
+                        return clear();
+                    }
+                }
+            }
+            rows.remove(uuid);
+            int[] removedRows = {ordinal};
+            for (LiveTopList[] lists : topLists.values()) {
+                for (LiveTopList list : lists) {
+                    list.removePlayers(removedRows);
+                    list.setPlayers(newPlayers);
+                }
+            }
+        }
+        players = newPlayers;
+        return false;
+    }
+
+    /**
+     * Removes all live top-lists, so top-statistics are calculated in full
+     * again until the lists are replaced. This should only be called from
+     * the main thread.
+     *
+     * @return true if there were any lists to remove
+     */
+    public boolean clear() {
+        boolean hadTopLists = !topLists.isEmpty();
+        topLists = new EnumMap<>(Statistic.class);
+        players = null;
+        rows = null;
+        return hadTopLists;
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object
+     * @return true if the result for this request can be taken from
+     * a live top-list (or from its ranking)
+     */
+    boolean isTracked(RequestSettings requestSettings) {
+        return getTopList(requestSettings) != null || getRanking(requestSettings) != null;
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object
+     * @return the current top-statistic for this request,
+     * or null if there is no live top-list for it
+     */
+    @Nullable TopStatList getTopStats(RequestSettings requestSettings) {
+        LiveTopList list = getTopList(requestSettings);
+        return list != null ?
+                list.getTopStats(requestSettings.getTopListOffset(), requestSettings.getTopListSize()) : null;
+    }
+
+    /**
+     * Gets the statistics in the "live-top-statistics" setting as
+     * RequestSettings for a top-statistic. Invalid entries are skipped,
+     * and so are statistics Bukkit doesn't report every change for.
+     */
+    RequestSettings[] getTrackedRequests() {
+        ArrayList<RequestSettings> requests = new ArrayList<>();
+        for (String entry : config.getLiveTopStatistics()) {
+            RequestSettings requestSettings = getRequest(entry);
+            if (requestSettings == null) {
+                MyLogger.logWarning("\"" + entry + "\" in live-top-statistics is not a valid statistic");
+            } else if (untrackableStatistics.contains(requestSettings.getStatistic())) {
+                MyLogger.logWarning("\"" + entry + "\" in live-top-statistics can't be kept up-to-date, " +
+                        "because Bukkit doesn't report changes for this statistic");
+            } else {
+                requests.add(requestSettings);
+            }
+        }
+        return requests.toArray(RequestSettings[]::new);
+    }
+
+    /**
+     * Replaces the current top-lists with new ones, filled with the
+     * given statistics. The new lists are put in place by the main thread,
+     * which first checks the current values of all online players, so no
+     * change is missed while the statistics were being calculated.
+     * If players were left out or included again in the meantime, or a player
+     * joined for the first time and left again before the lists were put in
+     * place, the new lists would be missing these changes. Then they are
+     * thrown away, and the statistics are calculated again.
+     *
+     * @param requests the requests the statistics were calculated for
+     * @param allStats the statistics for all players, for each request
+     * @param recalculate calculates the statistics again (outside the main
+     *                    thread) and calls this method with the new ones
+     */
+    void replaceTopLists(RequestSettings[] requests, StatValues[] allStats, Runnable recalculate) {
+        EnumMap<Statistic, LiveTopList[]> newTopLists = new EnumMap<>(Statistic.class);
+        LiveTopList[] createdLists = new LiveTopList[requests.length];
+        PlayerRegistry newPlayers = null;
+        HashMap<UUID, Integer> newRows = null;
+        if (requests.length > 0) {
+            newPlayers = allStats[0].players();
+            newRows = new HashMap<>(newPlayers.size() * 2);
+            for (int i = 0; i < newPlayers.size(); i++) {
+                //players that are not included have no row, so they can't enter the lists
+                if (newPlayers.isIncluded(i)) {
+                    newRows.put(newPlayers.getUUID(i), i);
+                }
+            }
+            int capacity = config.getTopListMaxSize();
+            for (int i = 0; i < requests.length; i++) {
+                RequestSettings requestSettings = requests[i];
+                LiveTopList list = new LiveTopList(requestSettings.getStatistic(),
+                        getMaterial(requestSettings), requestSettings.getEntity(),
+                        newPlayers, newRows, allStats[i].values(), allStats[i].includedValues(), capacity);
+                createdLists[i] = list;
+                LiveTopList[] lists = newTopLists.getOrDefault(requestSettings.getStatistic(), noTopLists);
+                lists = Arrays.copyOf(lists, lists.length + 1);
+                lists[lists.length - 1] = list;
+                newTopLists.put(requestSettings.getStatistic(), lists);
+            }
+        }
+
+        PlayerRegistry createdPlayers = newPlayers;
+        HashMap<UUID, Integer> createdRows = newRows;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            PlayerRegistry currentPlayers = offlinePlayerHandler.getPlayerRegistry();
+            if (createdPlayers != null && !isUpToDate(createdPlayers, currentPlayers)) {
+                MyLogger.logMediumLevelMsg("The list of players changed while the live top-lists " +
+                        "were being filled, so they are filled again");
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, recalculate);
+                return;
+            }
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                for (LiveTopList list : createdLists) {
+                    list.update(player.getUniqueId(), list.getValue(player));
+                }
+            }
+            topLists = newTopLists;
+            players = createdPlayers;
+            rows = createdRows;
+            if (createdPlayers != null && currentPlayers.size() > createdPlayers.size()) {
+                //players who joined for the first time while the lists were being filled (and are all still online)
+                for (int i = createdPlayers.size(); i < currentPlayers.size(); i++) {
+                    Player player = Bukkit.getPlayer(currentPlayers.getUUID(i));
+                    if (player != null) {
+                        addPlayer(currentPlayers, player);
+                    }
+                }
+            }
+            MyLogger.logMediumLevelMsg("Started " + requests.length + " live top-lists");
+        });
+    }
+
+    /**
+     * Checks whether top-lists made for the created registry can be used with
+     * the current one: no players can have been left out or included again,
+     * and every player that was added since must be online (so their values
+     * can be added to the lists now).
+     */
+    private static boolean isUpToDate(PlayerRegistry createdPlayers, PlayerRegistry currentPlayers) {
+        if (!currentPlayers.isExtensionOf(createdPlayers) || currentPlayers.getEpoch() != createdPlayers.getEpoch()) {
+            return false;
+        }
+        for (int i = createdPlayers.size(); i < currentPlayers.size(); i++) {
+            if (currentPlayers.isIncluded(i) && Bukkit.getPlayer(currentPlayers.getUUID(i)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object
+     * @return the live ranking for this rank- or percentile-statistic,
+     * or null if there is none
+     */
+    @Nullable LiveRanking getRanking(RequestSettings requestSettings) {
+        Target target = requestSettings.getTarget();
+        if ((target != Target.RANK && target != Target.PERCENTILE) || requestSettings.getLastPlayedLimit() != -1) {
+            return null;
+        }
+        LiveTopList[] lists = topLists.get(requestSettings.getStatistic());
+        if (lists != null) {
+            for (LiveTopList list : lists) {
+                if (list.matches(requestSettings.getStatistic(), getMaterial(requestSettings), requestSettings.getEntity())) {
+                    return list.getRanking();
+                }
+            }
+        }
+        return null;
+    }
+
+    private @Nullable LiveTopList getTopList(RequestSettings requestSettings) {
+        if (requestSettings.getTarget() != Target.TOP || requestSettings.getLastPlayedLimit() != -1) {
+            return null;
+        }
+        LiveTopList[] lists = topLists.get(requestSettings.getStatistic());
+        if (lists != null) {
+            for (LiveTopList list : lists) {
+                if (list.matches(requestSettings.getStatistic(), getMaterial(requestSettings), requestSettings.getEntity()) &&
+                        list.getCapacity() >= (long) requestSettings.getTopListOffset() + requestSettings.getTopListSize()) {
+                    return list;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param entry a statistic name, optionally followed by a colon and
+     *              a sub-statistic name (such as "mine_block:stone")
+     */
+    private @Nullable RequestSettings getRequest(String entry) {
+        String[] names = entry.trim().split(":", 2);
+        Statistic statistic = EnumHandler.getStatEnum(names[0]);
+        if (statistic == null) {
+            return null;
+        }
+        RequestHandler requestHandler = new RequestHandler(
+                RequestHandler.getBasicTopStatRequest(config.getTopListMaxSize()));
+        String subStatName = names.length > 1 ? names[1] : null;
+        try {
+            switch (statistic.getType()) {
+                case UNTYPED -> {
+                    return requestHandler.untyped(statistic);
+                }
+                case BLOCK, ITEM -> {
+                    Material material = (statistic.getType() == Statistic.Type.BLOCK) ?
+                            EnumHandler.getBlockEnum(subStatName) : EnumHandler.getItemEnum(subStatName);
+                    return material != null ? requestHandler.blockOrItemType(statistic, material) : null;
+                }
+                case ENTITY -> {
+                    EntityType entityType = EnumHandler.getEntityEnum(subStatName);
+                    return entityType != null ? requestHandler.entityType(statistic, entityType) : null;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static @Nullable Material getMaterial(RequestSettings requestSettings) {
+        return requestSettings.getBlock() != null ? requestSettings.getBlock() : requestSettings.getItem();
+    }
+
+    /**
+     * The values of a single player for every live top-list,
+     * in the order of the lists they were taken from.
+     */
+    public static final class PlayerValues {
+
+        private final EnumMap<Statistic, LiveTopList[]> topLists;
+        private final int[] values;
+
+        private PlayerValues(EnumMap<Statistic, LiveTopList[]> topLists, int[] values) {
+            this.topLists = topLists;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+/**
+ * The place a player is in for a statistic, compared to all players
+ * that are included in stat calculations.
+ *
+ * @param rank the place this player is in (starting at 1, where players with the same number share a place)
+ * @param playersBelow the number of players with a lower number than this player
+ * @param playerCount the number of players this player was compared to
+ */
+public record PlayerRank(int rank, int playersBelow, int playerCount) {
+
+    /**
+     * @return the percentage of players that have a lower number than this player
+     */
+    public double getPercentile() {
+        return playerCount > 0 ? 100.0 * playersBelow / playerCount : 0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import java.util.Arrays;
+
+/**
+ * Sorts arrays of ints from low to high with an LSD radix sort, which
+ * takes linear time and does not box any of the numbers. The numbers
+ * are sorted one byte at a time, and a byte is skipped entirely if all
+ * numbers have the same value for it (which happens often for
+ * statistics, where most numbers are small).
+ */
+final class RadixSort {
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sorts the array in place.
+     *
+     * @param values the array to sort
+     */
+    static void sort(int[] values) {
+        int length = values.length;
+        if (length < 2) {
+            return;
+        }
+        int[] buffer = new int[length];
+        int[] source = values;
+        int[] target = buffer;
+        int[] counts = new int[256];
+
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int value : source) {
+                counts[getByte(value, shift)]++;
+            }
+            if (counts[getByte(source[0], shift)] == length) {
+                continue;
+            }
+            int position = 0;
+            for (int i = 0; i < 256; i++) {
+                int count = counts[i];
+                counts[i] = position;
+                position += count;
+            }
+            for (int value : source) {
+                target[counts[getByte(value, shift)]++] = value;
+            }
+            int[] temp = source;
+            source = target;
+            target = temp;
+        }
+        if (source != values) {
+            System.arraycopy(source, 0, values, 0, length);
+        }
+    }
+
+    /**
+     * The sign bit is flipped, so negative numbers end up before positive ones.
+     */
+    private static int getByte(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+    }
+}
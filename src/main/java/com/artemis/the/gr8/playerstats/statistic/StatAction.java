@@ -1,85 +1,149 @@
 package com.artemis.the.gr8.playerstats.statistic;
 
 import com.artemis.the.gr8.playerstats.ThreadManager;
-import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import com.artemis.the.gr8.playerstats.statistic.index.StatColumn;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndex;
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
 import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
 import com.artemis.the.gr8.playerstats.utils.MyLogger;
-import com.google.common.collect.ImmutableList;
+import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.RecursiveTask;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The action that is executed when a stat-command is triggered.
  */
-final class StatAction extends RecursiveTask<ConcurrentHashMap<String, Integer>> {
+final class StatAction extends RecursiveAction {
 
-    private static int threshold;
+    private final RequestSettings[] requests;
+    private final StatIndex statIndex;
+    private final StatColumn[] statColumns;
 
-    private final OfflinePlayerHandler offlinePlayerHandler;
-    private final ImmutableList<String> playerNames;
-    private final RequestSettings requestSettings;
-    private final ConcurrentHashMap<String, Integer> allStats;
+    private final PlayerRegistry players;
+    private final int[][] values;
+    private final int start;
+    private final int end;
+    private final int threshold;
+    private final AtomicBoolean cancelled;
 
     /**
-     * Gets the statistic numbers for all players whose name is on
-     * the list, puts them in a ConcurrentHashMap using the default
-     * ForkJoinPool, and returns the ConcurrentHashMap when
-     * everything is done.
+     * Gets the statistic numbers for all players in the PlayerRegistry,
+     * and stores each number in the values array at the position of
+     * the player's ordinal. Every subtask fills its own
+     * part of the array, so no synchronization is needed. Multiple statistics
+     * can be calculated at once, in which case each player's statistics
+     * are all retrieved together.
      *
-     * @param offlinePlayerHandler the OfflinePlayerHandler to convert playerNames into Players
-     * @param playerNames ImmutableList of playerNames for players that should be included in stat calculations
-     * @param requestSettings a validated requestSettings object
-     * @param allStats the ConcurrentHashMap to put the results on
+     * @param requests validated requestSettings objects, one for each statistic to get
+     * @param statIndex the StatIndex to take the numbers from, or null to get all numbers from Bukkit
+     * @param statColumns the column in the statIndex for each statistic (ignored if statIndex is null)
+     * @param players the players that should be included in stat calculations
+     * @param values an array for each statistic to put the results in (with the same size as players)
+     * @param threshold the number of players below which this task should not be split any further
      */
-    public StatAction(OfflinePlayerHandler offlinePlayerHandler, ImmutableList<String> playerNames, RequestSettings requestSettings, ConcurrentHashMap<String, Integer> allStats) {
-        threshold = ThreadManager.getTaskThreshold();
+    public StatAction(RequestSettings[] requests,
+                      @Nullable StatIndex statIndex, @Nullable StatColumn[] statColumns,
+                      PlayerRegistry players, int[][] values, int threshold) {
+        this(requests, statIndex, statColumns, players, values,
+                0, players.size(), threshold, new AtomicBoolean());
+    }
 
-        this.offlinePlayerHandler = offlinePlayerHandler;
-        this.playerNames = playerNames;
-        this.requestSettings = requestSettings;
-        this.allStats = allStats;
+    private StatAction(RequestSettings[] requests,
+                       @Nullable StatIndex statIndex, @Nullable StatColumn[] statColumns,
+                       PlayerRegistry players, int[][] values, int start, int end, int threshold,
+                       AtomicBoolean cancelled) {
+        this.requests = requests;
+        this.statIndex = statIndex;
+        this.statColumns = statColumns;
 
-        MyLogger.subActionCreated(Thread.currentThread().getName());
+        this.players = players;
+        this.values = values;
+        this.start = start;
+        this.end = end;
+        this.threshold = threshold;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Lets this task and all of its subtasks know they should stop. Subtasks
+     * that have not started yet won't do anything, and the ones that are
+     * running stop after the player they are currently looking at.
+     * The values array is left incomplete.
+     */
+    public void stop() {
+        cancelled.set(true);
     }
 
     @Override
-    protected ConcurrentHashMap<String, Integer> compute() {
-        if (playerNames.size() < threshold) {
-            return getStatsDirectly();
+    protected void compute() {
+        final int length = end - start;
+        if (cancelled.get()) {
+            return;
+        }
+        if (length <= threshold) {
+            getStatsDirectly();
         }
         else {
-            final StatAction subTask1 = new StatAction(offlinePlayerHandler, playerNames.subList(0, playerNames.size()/2), requestSettings, allStats);
-            final StatAction subTask2 = new StatAction(offlinePlayerHandler, playerNames.subList(playerNames.size()/2, playerNames.size()), requestSettings, allStats);
+            MyLogger.subActionCreated(Thread.currentThread().getName());
+            final int split = start + length / 2;
+            final StatAction subTask1 = new StatAction(requests, statIndex, statColumns,
+                    players, values, start, split, threshold, cancelled);
+            final StatAction subTask2 = new StatAction(requests, statIndex, statColumns,
+                    players, values, split, end, threshold, cancelled);
 
             //queue and compute all subtasks in the right order
-            subTask1.fork();
-            subTask2.compute();
-            return subTask1.join();
+            invokeAll(subTask1, subTask2);
         }
     }
 
-    private ConcurrentHashMap<String, Integer> getStatsDirectly() {
-        Iterator<String> iterator = playerNames.iterator();
-        if (iterator.hasNext()) {
-            do {
-                String playerName = iterator.next();
-                MyLogger.actionRunning(Thread.currentThread().getName());
-                OfflinePlayer player = offlinePlayerHandler.getOfflinePlayer(playerName);
-                int statistic = 0;
-                switch (requestSettings.getStatistic().getType()) {
-                    case UNTYPED -> statistic = player.getStatistic(requestSettings.getStatistic());
-                    case ENTITY -> statistic = player.getStatistic(requestSettings.getStatistic(), requestSettings.getEntity());
-                    case BLOCK -> statistic = player.getStatistic(requestSettings.getStatistic(), requestSettings.getBlock());
-                    case ITEM -> statistic = player.getStatistic(requestSettings.getStatistic(), requestSettings.getItem());
-                }
-                if (statistic > 0) {
-                    allStats.put(playerName, statistic);
+    private void getStatsDirectly() {
+        MyLogger.actionRunning(Thread.currentThread().getName());
+        for (int i = start; i < end && !cancelled.get(); i++) {
+            //players that are not included keep a value of 0, so they never show up in a top-list
+            if (!players.isIncluded(i)) {
+                continue;
+            }
+            UUID uuid = players.getUUID(i);
+            int row = statIndex != null ? statIndex.getRow(uuid) : -1;
+            if (row != -1) {
+                for (int j = 0; j < requests.length; j++) {
+                    values[j][i] = statColumns[j].get(row);
                 }
-            } while (iterator.hasNext());
+            } else {
+                getStatsFromBukkit(uuid, i);
+            }
+        }
+    }
+
+    /** Used for players that are not in the {@link StatIndex}, or have been online since it was built. */
+    private void getStatsFromBukkit(UUID uuid, int position) {
+        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+        if (player.isOnline()) {
+            getStatistics(player, position);
+            return;
+        }
+        //for offline players, Bukkit has to read the statistic file from disk
+        try {
+            ThreadManager.runBlocking(() -> getStatistics(player, position));
+        } catch (IOException e) {
+            MyLogger.logException(e, "StatAction", "getStatsFromBukkit()");
+        }
+    }
+
+    private void getStatistics(OfflinePlayer player, int position) {
+        for (int j = 0; j < requests.length; j++) {
+            RequestSettings requestSettings = requests[j];
+            values[j][position] = switch (requestSettings.getStatistic().getType()) {
+                case UNTYPED -> player.getStatistic(requestSettings.getStatistic());
+                case ENTITY -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getEntity());
+                case BLOCK -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getBlock());
+                case ITEM -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getItem());
+            };
         }
-        return allStats;
     }
-}
\ No newline at end of file
+}
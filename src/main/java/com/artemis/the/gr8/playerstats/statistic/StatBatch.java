@@ -0,0 +1,66 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The statistics for all players for a number of requests, that were
+ * calculated together by {@link StatCalculator#calculateBatch(java.util.List)}.
+ * The results for each of these requests can be taken from here
+ * without going over all players again.
+ */
+public final class StatBatch {
+
+    private final StatCalculator statCalculator;
+    private final Map<String, StatValues> allStats;
+
+    StatBatch(StatCalculator statCalculator, Map<String, StatValues> allStats) {
+        this.statCalculator = statCalculator;
+        this.allStats = allStats;
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object that was part of this batch
+     * @return the top-statistic for this request
+     */
+    public TopStatList getTopStats(RequestSettings requestSettings) {
+        return statCalculator.getTopStats(requestSettings, () -> getAllStats(requestSettings));
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object that was part of this batch
+     * @return the server-statistic for this request
+     */
+    public long getServerStat(RequestSettings requestSettings) {
+        return statCalculator.getServerStat(requestSettings, () -> getAllStats(requestSettings));
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object that was part of this batch
+     * @param playerStat the statistic number for the player in this request
+     * @return the place this player is in for this statistic
+     */
+    public PlayerRank getRank(RequestSettings requestSettings, int playerStat) {
+        return statCalculator.getRank(requestSettings, playerStat, () -> getAllStats(requestSettings));
+    }
+
+    /**
+     * @param requestSettings a validated RequestSettings object that was part of this batch
+     * @return the percentiles for this statistic
+     */
+    public LinkedHashMap<Integer, Integer> getPercentiles(RequestSettings requestSettings) {
+        return statCalculator.getPercentiles(requestSettings, () -> getAllStats(requestSettings));
+    }
+
+    /**
+     * Requests that were remembered when the batch was calculated are not in it,
+     * so if they have been forgotten since, they are calculated on their own.
+     */
+    private StatValues getAllStats(RequestSettings requestSettings) {
+        StatValues stats = allStats.get(StatResultCache.getStatKey(requestSettings));
+        return stats != null ? stats : statCalculator.getAllStatsAsync(requestSettings);
+    }
+}
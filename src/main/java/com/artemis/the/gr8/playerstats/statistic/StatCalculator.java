@@ -1,28 +1,164 @@
 package com.artemis.the.gr8.playerstats.statistic;
 
 import com.artemis.the.gr8.playerstats.ThreadManager;
+import com.artemis.the.gr8.playerstats.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.enums.Target;
+import com.artemis.the.gr8.playerstats.statistic.index.StatColumn;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndex;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndexHandler;
 import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
 import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
 import com.artemis.the.gr8.playerstats.utils.MyLogger;
-import com.google.common.collect.ImmutableList;
+import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Collectors;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 
 public final class StatCalculator {
 
+    /** The percentiles that are given for a percentile-statistic. */
+    private static final int[] percentiles = {0, 10, 25, 50, 75, 90, 99, 100};
+
+    private final ConfigHandler config;
     private final OfflinePlayerHandler offlinePlayerHandler;
+    private final StatIndexHandler statIndexHandler;
+    private final ConcurrentHashMap<String, CompletableFuture<StatValues>> runningCalculations;
+    private final StatResultCache resultCache;
+    private final LiveTopStats liveTopStats;
 
-    public StatCalculator(OfflinePlayerHandler offlinePlayerHandler) {
+    public StatCalculator(ConfigHandler config, OfflinePlayerHandler offlinePlayerHandler,
+                          StatIndexHandler statIndexHandler, LiveTopStats liveTopStats) {
+        this.config = config;
         this.offlinePlayerHandler = offlinePlayerHandler;
+        this.statIndexHandler = statIndexHandler;
+        this.liveTopStats = liveTopStats;
+        runningCalculations = new ConcurrentHashMap<>();
+        resultCache = new StatResultCache(config, offlinePlayerHandler);
+    }
+
+    /**
+     * Checks whether the result for this request has been calculated recently,
+     * and can be returned right away.
+     *
+     * @param requestSettings a validated RequestSettings object
+     * @return true if the result for this request is remembered
+     */
+    public boolean hasRecentResult(RequestSettings requestSettings) {
+        return switch (requestSettings.getTarget()) {
+            case PLAYER -> false;
+            case TOP -> liveTopStats.isTracked(requestSettings) ||
+                    resultCache.contains(StatResultCache.getKey(requestSettings));
+            case SERVER -> resultCache.contains(StatResultCache.getKey(requestSettings));
+            case RANK -> liveTopStats.isTracked(requestSettings) ||
+                    resultCache.contains(StatResultCache.getKey(requestSettings));
+            case PERCENTILE -> liveTopStats.isTracked(requestSettings) || resultCache.contains(config.useExactPercentiles() ?
+                    StatResultCache.getRankingKey(requestSettings) : StatResultCache.getKey(requestSettings));
+        };
+    }
+
+    /**
+     * Forgets all remembered results. Results for an older list of players
+     * are never handed out anyway, so this only frees up their memory
+     * after the list of players to include in calculations changes.
+     */
+    public void clearRecentResults() {
+        resultCache.clear();
     }
 
+    /**
+     * Calculates the statistics for all players for the statistics in the
+     * "live-top-statistics" setting, and uses them to start a new set of
+     * {@link LiveTopStats live top-lists}. This should happen on start-up,
+     * and whenever the list of players to include in calculations changes.
+     */
+    public void updateLiveTopStats() {
+        RequestSettings[] requests = liveTopStats.getTrackedRequests();
+        StatValues[] allStats = (requests.length > 0) ? calculateAllStats(requests) : new StatValues[0];
+        liveTopStats.replaceTopLists(requests, allStats, this::updateLiveTopStats);
+    }
+
+    /**
+     * Gets the statistic for the player in this request. For players that are
+     * offline, the number is taken from the {@link StatIndex} if it is up-to-date,
+     * so Bukkit doesn't have to read their statistic file. Because that can
+     * still happen, this should not be called from the main thread
+     * (use {@link #tryGetCheapPlayerStat(RequestSettings)} there).
+     */
     public int getPlayerStat(RequestSettings requestSettings) {
-        OfflinePlayer player = offlinePlayerHandler.getOfflinePlayer(requestSettings.getPlayerName());
+        UUID uuid = getPlayers(requestSettings).getUUID(requestSettings.getPlayerName());
+        OptionalInt indexedStat = getIndexedPlayerStat(requestSettings, uuid);
+        if (indexedStat.isPresent()) {
+            return indexedStat.getAsInt();
+        }
+        OfflinePlayer player = (uuid != null) ? Bukkit.getOfflinePlayer(uuid) :
+                offlinePlayerHandler.getOfflinePlayer(requestSettings.getPlayerName());
+        return getStatistic(player, requestSettings);
+    }
+
+    public TopStatList getTopStats(RequestSettings requestSettings) {
+        return getTopStats(requestSettings, () -> getAllStatsAsync(requestSettings));
+    }
+
+    public long getServerStat(RequestSettings requestSettings) {
+        return getServerStat(requestSettings, () -> getAllStatsAsync(requestSettings));
+    }
+
+    /**
+     * Gets the player-statistic for this request if it can be taken from a
+     * player that is online or from the {@link StatIndex}, without reading
+     * anything from disk or waiting for the StatIndexRefresher.
+     * This is safe to call from the main thread.
+     *
+     * @return the statistic for this player, or an empty OptionalInt
+     * if it needs a StatLookup
+     */
+    OptionalInt tryGetCheapPlayerStat(RequestSettings requestSettings) {
+        UUID uuid = getPlayers(requestSettings).getUUID(requestSettings.getPlayerName());
+        if (uuid == null) {
+            return OptionalInt.empty();
+        }
+        OfflinePlayer onlinePlayer = Bukkit.getPlayer(uuid);
+        if (onlinePlayer != null) {
+            return OptionalInt.of(getStatistic(onlinePlayer, requestSettings));
+        }
+        return getIndexedPlayerStat(requestSettings, uuid);
+    }
+
+    /**
+     * Takes the player-statistic for this request from the {@link StatIndex}
+     * with a single tryLock, so this never waits for the StatIndexRefresher.
+     *
+     * @return the statistic for this player, or an empty OptionalInt if the
+     * StatIndex is busy or the player's row is not up-to-date
+     */
+    private OptionalInt getIndexedPlayerStat(RequestSettings requestSettings, @Nullable UUID uuid) {
+        StatIndex statIndex = statIndexHandler.getStatIndex();
+        if (uuid != null && statIndex != null && statIndex.readLock().tryLock()) {
+            try {
+                int row = statIndex.getRow(uuid);
+                if (row != -1) {
+                    return OptionalInt.of(statIndex.getColumn(StatIndex.getKey(requestSettings)).get(row));
+                }
+            } finally {
+                statIndex.readLock().unlock();
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    private static int getStatistic(OfflinePlayer player, RequestSettings requestSettings) {
         return switch (requestSettings.getStatistic().getType()) {
             case UNTYPED -> player.getStatistic(requestSettings.getStatistic());
             case ENTITY -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getEntity());
@@ -31,55 +167,476 @@ public final class StatCalculator {
         };
     }
 
-    public LinkedHashMap<String, Integer> getTopStats(RequestSettings requestSettings) {
-        return getAllStatsAsync(requestSettings).entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(requestSettings.getTopListSize())
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+    /**
+     * Gets the statistics for all players for a number of requests at once.
+     * Every player is only looked up once, and all statistics
+     * are retrieved for them together, so this is a lot faster than
+     * executing these requests one by one. Requests for a player-statistic,
+     * and requests that have been calculated recently, are skipped.
+     *
+     * @param requests validated RequestSettings objects
+     * @return a StatBatch that can be used to get the results for these requests
+     */
+    public @NotNull StatBatch calculateBatch(List<RequestSettings> requests) {
+        LinkedHashMap<String, RequestSettings> requestsToCalculate = new LinkedHashMap<>();
+        for (RequestSettings requestSettings : requests) {
+            if (requestSettings.getTarget() != Target.PLAYER && !hasRecentResult(requestSettings)) {
+                requestsToCalculate.putIfAbsent(StatResultCache.getStatKey(requestSettings), requestSettings);
+            }
+        }
+
+        //statistics that are already being calculated for another request are not calculated again
+        int epoch = offlinePlayerHandler.getEpoch();
+        ArrayList<String> statKeys = new ArrayList<>();
+        ArrayList<CompletableFuture<StatValues>> calculations = new ArrayList<>();
+        HashMap<String, CompletableFuture<StatValues>> otherCalculations = new HashMap<>();
+        for (String statKey : requestsToCalculate.keySet()) {
+            CompletableFuture<StatValues> calculation = new CompletableFuture<>();
+            CompletableFuture<StatValues> runningCalculation = runningCalculations.putIfAbsent(getCalculationKey(epoch, statKey), calculation);
+            if (runningCalculation != null) {
+                otherCalculations.put(statKey, runningCalculation);
+            } else {
+                statKeys.add(statKey);
+                calculations.add(calculation);
+            }
+        }
+
+        HashMap<String, StatValues> allStats = new HashMap<>();
+        if (!statKeys.isEmpty()) {
+            try {
+                StatValues[] batchStats = calculateAllStats(statKeys.stream()
+                        .map(requestsToCalculate::get)
+                        .toArray(RequestSettings[]::new));
+                for (int i = 0; i < batchStats.length; i++) {
+                    allStats.put(statKeys.get(i), batchStats[i]);
+                    calculations.get(i).complete(batchStats[i]);
+                }
+            } catch (RuntimeException e) {
+                calculations.forEach(calculation -> calculation.completeExceptionally(e));
+                throw e;
+            } finally {
+                for (int i = 0; i < statKeys.size(); i++) {
+                    runningCalculations.remove(getCalculationKey(epoch, statKeys.get(i)), calculations.get(i));
+                }
+            }
+        }
+        if (!otherCalculations.isEmpty()) {
+            MyLogger.logMediumLevelMsg("Waiting for " + otherCalculations.size() + " running calculations to finish");
+            otherCalculations.forEach((statKey, calculation) -> {
+                StatValues otherStats = await(calculation);
+                allStats.put(statKey, otherStats != null ?
+                        otherStats : getAllStatsAsync(requestsToCalculate.get(statKey)));
+            });
+        }
+        return new StatBatch(this, allStats);
     }
 
-    public long getServerStat(RequestSettings requestSettings) {
-        List<Integer> numbers = getAllStatsAsync(requestSettings)
-                .values()
-                .parallelStream()
-                .toList();
-        return numbers.parallelStream().mapToLong(Integer::longValue).sum();
+    /**
+     * Gets the top-statistic for this request from a live top-list
+     * or from a recently calculated result, without calculating anything.
+     *
+     * @return the top-statistic, or null if it would have to be calculated
+     */
+    @Nullable TopStatList getRecentTopStats(RequestSettings requestSettings) {
+        TopStatList currentTopStats = liveTopStats.getTopStats(requestSettings);
+        if (currentTopStats != null) {
+            return currentTopStats;
+        }
+        return resultCache.getTopStats(StatResultCache.getKey(requestSettings));
+    }
+
+    TopStatList getTopStats(RequestSettings requestSettings, Supplier<StatValues> allStatsSupplier) {
+        TopStatList recentTopStats = getRecentTopStats(requestSettings);
+        if (recentTopStats != null) {
+            return recentTopStats;
+        }
+        StatValues allStats = allStatsSupplier.get();
+        TopStatList topStats = selectTopStats(allStats,
+                requestSettings.getTopListOffset(), requestSettings.getTopListSize());
+        resultCache.putTopStats(StatResultCache.getKey(requestSettings), topStats, allStats.epoch());
+        return topStats;
+    }
+
+    /**
+     * @return the (at most) pageSize players with the highest number after the
+     * first offset players, leaving out players whose number is 0 or lower
+     */
+    private static TopStatList selectTopStats(StatValues allStats, int offset, int pageSize) {
+        PlayerRegistry players = allStats.players();
+        int[] values = allStats.values();
+
+        int[] topIndices = TopStatSelector.selectPage(values, allStats.size(), offset, pageSize);
+        int size = 0;
+        while (size < topIndices.length && values[topIndices[size]] > 0) {
+            size++;
+        }
+        String[] topNames = new String[size];
+        int[] topValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            topNames[i] = players.getPlayerName(topIndices[i]);
+            topValues[i] = values[topIndices[i]];
+        }
+        return new TopStatList(topNames, topValues);
+    }
+
+    /**
+     * Gets the place this player is in, compared to all other players.
+     * Players with the same number share a place, and the place
+     * is the same as the number of players with a higher number plus one.
+     *
+     * @param requestSettings a validated RequestSettings object
+     * @param playerStat the statistic number for the player in this request
+     * @return the place this player is in for this statistic
+     */
+    public PlayerRank getRank(RequestSettings requestSettings, int playerStat) {
+        return getRank(requestSettings, playerStat, () -> getAllStatsAsync(requestSettings));
+    }
+
+    /**
+     * Gets the place of this player from a {@link LiveRanking} or from
+     * a recently calculated ranking, without calculating anything.
+     *
+     * @return the place this player is in, or null if it would have to be calculated
+     */
+    @Nullable PlayerRank getRecentRank(RequestSettings requestSettings, int playerStat) {
+        LiveRanking liveRanking = liveTopStats.getRanking(requestSettings);
+        if (liveRanking != null) {
+            return liveRanking.getRank(playerStat);
+        }
+        int[] ranking = resultCache.getRanking(StatResultCache.getRankingKey(requestSettings));
+        return ranking != null ? getRank(ranking, playerStat) : null;
+    }
+
+    PlayerRank getRank(RequestSettings requestSettings, int playerStat, Supplier<StatValues> allStatsSupplier) {
+        PlayerRank recentRank = getRecentRank(requestSettings, playerStat);
+        return recentRank != null ? recentRank : getRank(getRanking(requestSettings, allStatsSupplier), playerStat);
+    }
+
+    private static PlayerRank getRank(int[] ranking, int playerStat) {
+        int playersBelow = getFirstPosition(ranking, ranking.length, playerStat);
+        int playersAbove = ranking.length - getFirstPosition(ranking, ranking.length, playerStat + 1L);
+        return new PlayerRank(playersAbove + 1, playersBelow, ranking.length);
+    }
+
+    /**
+     * Gets the value below which the given percentage of all players falls,
+     * for each of the percentiles in {@link #percentiles}. Depending on the
+     * config, these are either exact or estimated with a {@link StatHistogram}.
+     *
+     * @param requestSettings a validated RequestSettings object
+     * @return the percentiles (from 0 to 100) and their value
+     */
+    public LinkedHashMap<Integer, Integer> getPercentiles(RequestSettings requestSettings) {
+        return getPercentiles(requestSettings, () -> getAllStatsAsync(requestSettings));
+    }
+
+    /**
+     * Gets the percentiles for this request from a {@link LiveRanking}
+     * (which are always exact), or from a recently calculated ranking
+     * or histogram, without calculating anything.
+     *
+     * @return the percentiles, or null if they would have to be calculated
+     */
+    @Nullable LinkedHashMap<Integer, Integer> getRecentPercentiles(RequestSettings requestSettings) {
+        LiveRanking liveRanking = liveTopStats.getRanking(requestSettings);
+        if (liveRanking != null) {
+            int[] values = liveRanking.getValuesAt(percentiles);
+            LinkedHashMap<Integer, Integer> percentileValues = new LinkedHashMap<>(percentiles.length * 2);
+            for (int i = 0; i < percentiles.length; i++) {
+                percentileValues.put(percentiles[i], values[i]);
+            }
+            return percentileValues;
+        }
+        if (config.useExactPercentiles()) {
+            int[] ranking = resultCache.getRanking(StatResultCache.getRankingKey(requestSettings));
+            return ranking != null ? getPercentileValues(percentile -> getValueAt(ranking, ranking.length, percentile)) : null;
+        }
+        StatHistogram histogram = resultCache.getHistogram(StatResultCache.getKey(requestSettings));
+        return histogram != null ? getPercentileValues(histogram::getValueAt) : null;
+    }
+
+    LinkedHashMap<Integer, Integer> getPercentiles(RequestSettings requestSettings, Supplier<StatValues> allStatsSupplier) {
+        LinkedHashMap<Integer, Integer> recentPercentiles = getRecentPercentiles(requestSettings);
+        if (recentPercentiles != null) {
+            return recentPercentiles;
+        }
+        if (config.useExactPercentiles()) {
+            int[] ranking = getRanking(requestSettings, allStatsSupplier);
+            return getPercentileValues(percentile -> getValueAt(ranking, ranking.length, percentile));
+        }
+        StatValues allStats = allStatsSupplier.get();
+        StatHistogram histogram = StatHistogram.of(allStats.includedValues());
+        resultCache.putHistogram(StatResultCache.getKey(requestSettings), histogram, allStats.epoch());
+        return getPercentileValues(histogram::getValueAt);
+    }
+
+    private static LinkedHashMap<Integer, Integer> getPercentileValues(IntUnaryOperator valueAtPercentile) {
+        LinkedHashMap<Integer, Integer> percentileValues = new LinkedHashMap<>(percentiles.length * 2);
+        for (int percentile : percentiles) {
+            percentileValues.put(percentile, valueAtPercentile.applyAsInt(percentile));
+        }
+        return percentileValues;
+    }
+
+    /**
+     * Gets the values of all players for this statistic, sorted from low to high.
+     * The returned array is shared, and should not be changed.
+     */
+    private int[] getRanking(RequestSettings requestSettings, Supplier<StatValues> allStatsSupplier) {
+        String cacheKey = StatResultCache.getRankingKey(requestSettings);
+        int[] ranking = resultCache.getRanking(cacheKey);
+        if (ranking == null) {
+            StatValues allStats = allStatsSupplier.get();
+            ranking = allStats.includedValues().clone();
+            RadixSort.sort(ranking);
+            resultCache.putRanking(cacheKey, ranking, allStats.epoch());
+        }
+        return ranking;
+    }
+
+    /**
+     * @return the recently calculated server-statistic for this request,
+     * or null if it would have to be calculated
+     */
+    @Nullable Long getRecentServerStat(RequestSettings requestSettings) {
+        return resultCache.getServerStat(StatResultCache.getKey(requestSettings));
+    }
+
+    long getServerStat(RequestSettings requestSettings, Supplier<StatValues> allStatsSupplier) {
+        Long recentServerStat = getRecentServerStat(requestSettings);
+        if (recentServerStat != null) {
+            return recentServerStat;
+        }
+
+        StatValues allStats = allStatsSupplier.get();
+        long sum = 0;
+        for (int value : allStats.values()) {
+            if (value > 0) {
+                sum += value;
+            }
+        }
+        resultCache.putServerStat(StatResultCache.getKey(requestSettings), sum, allStats.epoch());
+        return sum;
+    }
+
+    /**
+     * Gets the statistics for all players. If the same statistic is already
+     * being calculated for another request (for a top- or server-statistic of
+     * any size), this waits for that calculation to finish and uses its
+     * result, instead of going over all players again. If that calculation
+     * is cancelled by the request that started it, this starts a new one.
+     * Calculations for an older list of players are never shared with
+     * requests that come in after a new list has been loaded.
+     * The returned StatValues are shared, and should not be changed.
+     *
+     * @throws CancellationException if the current thread is interrupted
+     */
+    @NotNull StatValues getAllStatsAsync(RequestSettings requestSettings) {
+        String statKey = StatResultCache.getStatKey(requestSettings);
+        while (true) {
+            String calculationKey = getCalculationKey(offlinePlayerHandler.getEpoch(), statKey);
+            CompletableFuture<StatValues> calculation = new CompletableFuture<>();
+            CompletableFuture<StatValues> runningCalculation = runningCalculations.putIfAbsent(calculationKey, calculation);
+            if (runningCalculation != null) {
+                MyLogger.logMediumLevelMsg("Waiting for a running calculation of " + statKey + " to finish");
+                StatValues allStats = await(runningCalculation);
+                if (allStats != null) {
+                    return allStats;
+                }
+                continue;
+            }
+
+            try {
+                StatValues allStats = calculateAllStats(new RequestSettings[]{requestSettings})[0];
+                calculation.complete(allStats);
+                return allStats;
+            } catch (RuntimeException e) {
+                calculation.completeExceptionally(e);
+                throw e;
+            } finally {
+                runningCalculations.remove(calculationKey, calculation);
+            }
+        }
+    }
+
+    private static String getCalculationKey(int epoch, String statKey) {
+        return epoch + ":" + statKey;
+    }
+
+    /**
+     * @return the first position in the sorted array (of which the first size
+     * values are used) with a value that is the same or higher than this one
+     * (or size, if there is none)
+     */
+    static int getFirstPosition(int[] sortedValues, int size, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the value at this percentile with the nearest-rank method.
+     */
+    static int getValueAt(int[] sortedValues, int size, int percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int position = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sortedValues[Math.max(0, Math.min(size - 1, position))];
+    }
+
+    /**
+     * Waits for a calculation that was started for another request.
+     *
+     * @return the result of the calculation, or null if it was cancelled
+     * @throws CancellationException if the current thread is interrupted while waiting
+     */
+    private static @Nullable StatValues await(CompletableFuture<StatValues> calculation) {
+        try {
+            return calculation.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Stopped waiting for a running calculation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets the players that are included for this request: the current
+     * {@link PlayerRegistry}, limited to the players that have joined
+     * within the last-played-limit of this request if it has one of its own.
+     */
+    private PlayerRegistry getPlayers(RequestSettings requestSettings) {
+        PlayerRegistry players = offlinePlayerHandler.getPlayerRegistry();
+        int lastPlayedLimit = requestSettings.getLastPlayedLimit();
+        return lastPlayedLimit != -1 ? players.forLastPlayedLimit(lastPlayedLimit) : players;
+    }
+
+    /**
+     * Gets the statistics for all players for these requests. Requests with
+     * the same last-played-limit include the same players, so they are
+     * calculated together. Usually, this is all of them.
+     */
+    private @NotNull StatValues[] calculateAllStats(RequestSettings[] requests) {
+        LinkedHashMap<Integer, ArrayList<Integer>> positionsByLimit = new LinkedHashMap<>();
+        for (int i = 0; i < requests.length; i++) {
+            positionsByLimit.computeIfAbsent(requests[i].getLastPlayedLimit(), limit -> new ArrayList<>()).add(i);
+        }
+        if (positionsByLimit.size() <= 1) {
+            return calculateAllStats(requests, requests.length > 0 ?
+                    getPlayers(requests[0]) : offlinePlayerHandler.getPlayerRegistry());
+        }
+
+        StatValues[] allStats = new StatValues[requests.length];
+        for (ArrayList<Integer> positions : positionsByLimit.values()) {
+            RequestSettings[] group = positions.stream()
+                    .map(position -> requests[position])
+                    .toArray(RequestSettings[]::new);
+            StatValues[] groupStats = calculateAllStats(group, getPlayers(group[0]));
+            for (int i = 0; i < groupStats.length; i++) {
+                allStats[positions.get(i)] = groupStats[i];
+            }
+        }
+        return allStats;
     }
 
     /**
      * Invokes a bunch of worker pool threads to get the statistics for
      * all players that are stored in the {@link OfflinePlayerHandler}).
+     * The numbers are taken from the {@link StatIndex} where possible.
+     * All requested statistics are retrieved in the same pass over
+     * all players, and share the same {@link PlayerRegistry}, which is
+     * taken once at the start, so the whole calculation sees the same players.
      */
-    private @NotNull ConcurrentHashMap<String, Integer> getAllStatsAsync(RequestSettings requestSettings) {
+    private @NotNull StatValues[] calculateAllStats(RequestSettings[] requests, PlayerRegistry players) {
         long time = System.currentTimeMillis();
 
-        ForkJoinPool commonPool = ForkJoinPool.commonPool();
-        ConcurrentHashMap<String, Integer> allStats;
+        ForkJoinPool workerPool = ThreadManager.getWorkerPool();
+        int[][] values = new int[requests.length][players.size()];
 
+        //make sure the StatIndexRefresher doesn't change the index halfway through
+        StatIndex statIndex = statIndexHandler.getStatIndex();
+        if (statIndex != null) {
+            statIndex.readLock().lock();
+        }
         try {
-            allStats = commonPool.invoke(getStatTask(requestSettings));
+            long startTime = System.nanoTime();
+            invokeInterruptibly(workerPool, getStatTask(requests, statIndex, players, values));
+            ThreadManager.recordStatCost(players.size() * requests.length, System.nanoTime() - startTime);
         } catch (ConcurrentModificationException e) {
             MyLogger.logWarning("The requestSettings could not be executed due to a ConcurrentModificationException. " +
                     "This likely happened because Bukkit hasn't fully initialized all player-data yet. " +
                     "Try again and it should be fine!");
             throw new ConcurrentModificationException(e.toString());
+        } finally {
+            if (statIndex != null) {
+                statIndex.readLock().unlock();
+            }
         }
 
         MyLogger.actionFinished();
         ThreadManager.recordCalcTime(System.currentTimeMillis() - time);
-        MyLogger.logMediumLevelTask("StatThread", "calculated all stats", time);
+        MyLogger.logMediumLevelTask("StatLookup", "calculated all stats" +
+                (requests.length > 1 ? " for " + requests.length + " statistics" : ""), time);
 
+        StatValues[] allStats = new StatValues[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            allStats[i] = new StatValues(players, values[i]);
+        }
         return allStats;
     }
 
-    private StatAction getStatTask(RequestSettings requestSettings) {
-        int size = offlinePlayerHandler.getOfflinePlayerCount() != 0 ? offlinePlayerHandler.getOfflinePlayerCount() : 16;
-        ConcurrentHashMap<String, Integer> allStats = new ConcurrentHashMap<>(size);
-        ImmutableList<String> playerNames = ImmutableList.copyOf(offlinePlayerHandler.getOfflinePlayerNames());
+    /**
+     * Runs the task in the worker pool, and waits for it to finish.
+     * If the current thread is interrupted while waiting, the task is stopped.
+     *
+     * @throws CancellationException if the task was stopped
+     */
+    private static void invokeInterruptibly(ForkJoinPool workerPool, StatAction task) {
+        workerPool.execute(task);
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            task.stop();
+            //wait for the running subtasks to notice, so none of them are still reading the StatIndex
+            task.quietlyJoin();
+            Thread.currentThread().interrupt();
+            MyLogger.logMediumLevelMsg("A calculation was cancelled");
+            throw new CancellationException("The calculation was cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
 
-        StatAction task = new StatAction(offlinePlayerHandler, playerNames, requestSettings, allStats);
-        MyLogger.actionCreated(playerNames.size());
+    private StatAction getStatTask(RequestSettings[] requests, StatIndex statIndex, PlayerRegistry players, int[][] values) {
+        StatColumn[] statColumns = null;
+        if (statIndex != null) {
+            statColumns = new StatColumn[requests.length];
+            for (int i = 0; i < requests.length; i++) {
+                statColumns[i] = statIndex.getColumn(StatIndex.getKey(requests[i]));
+            }
+        }
+        StatAction task = new StatAction(requests, statIndex, statColumns, players, values,
+                ThreadManager.getTaskThreshold(players.size(), ThreadManager.getStatCostPerPlayer() * requests.length));
+        MyLogger.actionCreated(players.size());
 
         return task;
     }
-}
\ No newline at end of file
+}
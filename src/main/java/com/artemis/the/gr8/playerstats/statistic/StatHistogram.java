@@ -0,0 +1,102 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+/**
+ * Counts how many players have a value in each of a fixed set of buckets,
+ * to estimate percentiles without sorting all values. Values up to 7 have
+ * their own bucket, and every power of two above that is split into 8
+ * buckets, so an estimated value is never more than about 6% off.
+ * Values of 0 or lower all share the first bucket.
+ */
+final class StatHistogram {
+
+    private static final int subBucketBits = 3;
+    private static final int subBuckets = 1 << subBucketBits;
+    private static final int bucketCount = subBuckets + (31 - subBucketBits) * subBuckets;
+
+    private final int[] counts;
+    private int totalCount;
+    private int min;
+    private int max;
+
+    private StatHistogram() {
+        counts = new int[bucketCount];
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+    }
+
+    /**
+     * @param values the values to count
+     * @return a histogram of these values
+     */
+    static StatHistogram of(int[] values) {
+        StatHistogram histogram = new StatHistogram();
+        for (int value : values) {
+            histogram.counts[getBucket(value)]++;
+            histogram.min = Math.min(histogram.min, value);
+            histogram.max = Math.max(histogram.max, value);
+        }
+        histogram.totalCount = values.length;
+        return histogram;
+    }
+
+    /**
+     * Estimates the value at this percentile, using the nearest-rank method.
+     * The lowest and highest values are exact.
+     *
+     * @param percentile a number between 0 and 100
+     * @return the estimated value, or 0 if there are no values
+     */
+    int getValueAt(int percentile) {
+        if (totalCount == 0) {
+            return 0;
+        } else if (percentile <= 0) {
+            return min;
+        } else if (percentile >= 100) {
+            return max;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                long estimate = (getLowerBound(bucket) + getUpperBound(bucket)) / 2;
+                return (int) Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gives the size of this histogram in bytes, roughly.
+     */
+    static long getSize() {
+        return 64 + bucketCount * 4L;
+    }
+
+    private static int getBucket(int value) {
+        if (value < subBuckets) {
+            return Math.max(value, 0);
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(value);
+        int shift = exponent - subBucketBits;
+        return subBuckets + shift * subBuckets + ((value >>> shift) & (subBuckets - 1));
+    }
+
+    private static long getLowerBound(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int shift = (bucket - subBuckets) / subBuckets;
+        int subBucket = (bucket - subBuckets) % subBuckets;
+        return (long) (subBuckets + subBucket) << shift;
+    }
+
+    private static long getUpperBound(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int shift = (bucket - subBuckets) / subBuckets;
+        int subBucket = (bucket - subBuckets) % subBuckets;
+        return ((long) (subBuckets + subBucket + 1) << shift) - 1;
+    }
+}
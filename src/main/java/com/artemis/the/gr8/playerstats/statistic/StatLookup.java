@@ -0,0 +1,159 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import com.artemis.the.gr8.playerstats.ThreadManager;
+import com.artemis.the.gr8.playerstats.msg.OutputManager;
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.enums.StandardMessage;
+import com.artemis.the.gr8.playerstats.enums.Target;
+import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
+import com.artemis.the.gr8.playerstats.reload.ReloadThread;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The task that is in charge of getting and calculating the statistic
+ * for a single stat-command. Lookups are run by the lookup executor in the
+ * {@link ThreadManager}, so only a limited number of them run at the same time.
+ */
+public final class StatLookup implements Runnable {
+
+    private static OutputManager outputManager;
+    private static StatCalculator statCalculator;
+
+    private final String name;
+    private final ReloadThread reloadThread;
+    private final RequestSettings requestSettings;
+
+    public StatLookup(OutputManager m, StatCalculator t, int ID, RequestSettings s, @Nullable ReloadThread r) {
+        outputManager = m;
+        statCalculator = t;
+
+        reloadThread = r;
+        requestSettings = s;
+
+        name = "StatLookup-" + requestSettings.getCommandSender().getName() + "-" + ID;
+        MyLogger.logHighLevelMsg(name + " created!");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RequestSettings getRequestSettings() {
+        return requestSettings;
+    }
+
+    @Override
+    public void run() throws IllegalStateException, NullPointerException {
+        MyLogger.logHighLevelMsg(name + " started!");
+
+        if (requestSettings == null) {
+            throw new NullPointerException("No statistic requestSettings was found!");
+        }
+        if (reloadThread != null && reloadThread.isAlive()) {
+            try {
+                MyLogger.logLowLevelMsg(name + ": Waiting for " + reloadThread.getName() + " to finish up...");
+                outputManager.sendFeedbackMsg(requestSettings.getCommandSender(), StandardMessage.STILL_RELOADING);
+                reloadThread.join();
+
+            } catch (InterruptedException e) {
+                MyLogger.logException(e, "StatLookup", "Trying to join " + reloadThread.getName());
+                throw new RuntimeException(e);
+            }
+        }
+
+        //the last recorded time is for going over all players, which a player-statistic doesn't do
+        long lastCalc = ThreadManager.getLastRecordedCalcTime();
+        if (lastCalc > 2000 && requestSettings.getTarget() != Target.PLAYER &&
+                !statCalculator.hasRecentResult(requestSettings)) {
+            outputManager.sendFeedbackMsgWaitAMoment(requestSettings.getCommandSender(), lastCalc > 20000);
+        }
+
+        getAndSendStatResult(outputManager, statCalculator, requestSettings);
+    }
+
+    /**
+     * Sends the result for this request right away if it can be answered
+     * without going over all players or reading anything from disk:
+     * a player-statistic for a player that is online or in the StatIndex,
+     * or a result that was calculated recently. The result is taken in the
+     * same step that checks for it, so it can't be forgotten in between.
+     * These requests don't need a StatLookup of their own.
+     *
+     * @param outputManager the OutputManager to format and send the result with
+     * @param statCalculator the StatCalculator to get the statistic from
+     * @param requestSettings a validated RequestSettings object
+     * @return true if the result was sent, false if a StatLookup is needed
+     */
+    public static boolean trySendCheapResult(OutputManager outputManager, StatCalculator statCalculator,
+                                             RequestSettings requestSettings) {
+        TextComponent statResult = switch (requestSettings.getTarget()) {
+            case PLAYER -> {
+                OptionalInt playerStat = statCalculator.tryGetCheapPlayerStat(requestSettings);
+                yield playerStat.isPresent() ?
+                        outputManager.formatAndSavePlayerStat(requestSettings, playerStat.getAsInt()) : null;
+            }
+            case TOP -> {
+                TopStatList topStats = statCalculator.getRecentTopStats(requestSettings);
+                yield topStats != null ? outputManager.formatAndSaveTopStat(requestSettings, topStats) : null;
+            }
+            case SERVER -> {
+                Long serverStat = statCalculator.getRecentServerStat(requestSettings);
+                yield serverStat != null ? outputManager.formatAndSaveServerStat(requestSettings, serverStat) : null;
+            }
+            case RANK -> {
+                OptionalInt cheapPlayerStat = statCalculator.tryGetCheapPlayerStat(requestSettings);
+                if (cheapPlayerStat.isEmpty()) {
+                    yield null;
+                }
+                int playerStat = cheapPlayerStat.getAsInt();
+                PlayerRank playerRank = statCalculator.getRecentRank(requestSettings, playerStat);
+                yield playerRank != null ? outputManager.formatAndSaveRankStat(requestSettings, playerRank, playerStat) : null;
+            }
+            case PERCENTILE -> {
+                LinkedHashMap<Integer, Integer> percentiles = statCalculator.getRecentPercentiles(requestSettings);
+                yield percentiles != null ? outputManager.formatAndSavePercentileStat(requestSettings, percentiles) : null;
+            }
+        };
+        if (statResult == null) {
+            return false;
+        }
+        outputManager.sendToCommandSender(requestSettings.getCommandSender(), statResult);
+        return true;
+    }
+
+    /**
+     * Gets the statistic for this request, and sends the formatted result
+     * to the CommandSender.
+     *
+     * @param outputManager the OutputManager to format and send the result with
+     * @param statCalculator the StatCalculator to get the statistic from
+     * @param requestSettings a validated RequestSettings object
+     */
+    public static void getAndSendStatResult(OutputManager outputManager, StatCalculator statCalculator,
+                                            RequestSettings requestSettings) {
+        Target selection = requestSettings.getTarget();
+        try {
+            TextComponent statResult = switch (selection) {
+                case PLAYER -> outputManager.formatAndSavePlayerStat(requestSettings, statCalculator.getPlayerStat(requestSettings));
+                case TOP -> outputManager.formatAndSaveTopStat(requestSettings, statCalculator.getTopStats(requestSettings));
+                case SERVER -> outputManager.formatAndSaveServerStat(requestSettings, statCalculator.getServerStat(requestSettings));
+                case RANK -> {
+                    int playerStat = statCalculator.getPlayerStat(requestSettings);
+                    yield outputManager.formatAndSaveRankStat(requestSettings,
+                            statCalculator.getRank(requestSettings, playerStat), playerStat);
+                }
+                case PERCENTILE -> outputManager.formatAndSavePercentileStat(requestSettings, statCalculator.getPercentiles(requestSettings));
+            };
+            outputManager.sendToCommandSender(requestSettings.getCommandSender(), statResult);
+        }
+        catch (ConcurrentModificationException e) {
+            if (!requestSettings.isConsoleSender()) {
+                outputManager.sendFeedbackMsg(requestSettings.getCommandSender(), StandardMessage.UNKNOWN_ERROR);
+            }
+        }
+    }
+}
\ No newline at end of file
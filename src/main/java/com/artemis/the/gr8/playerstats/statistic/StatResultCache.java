@@ -0,0 +1,180 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import com.artemis.the.gr8.playerstats.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.enums.Target;
+import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
+import com.artemis.the.gr8.playerstats.statistic.index.StatIndex;
+import com.artemis.the.gr8.playerstats.utils.OfflinePlayerHandler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the results of recent lookups for a short while, so popular
+ * statistics don't have to be calculated again every time someone asks for
+ * them: top-statistics (and single pages of them), server-statistics, the
+ * sorted values of all players that rank-statistics and exact percentiles
+ * are taken from, and the histograms that estimated percentiles are taken from. How long results are kept and how much memory
+ * the cache can use is set in the config. When the cache is full, the
+ * results that have not been used for the longest time are removed first.
+ * Every result remembers the epoch of the player-list it was calculated for,
+ * and is never handed out once a new player-list has been loaded, even if
+ * a calculation that started before the reload only finishes after it.
+ */
+final class StatResultCache {
+
+    private final ConfigHandler config;
+    private final OfflinePlayerHandler offlinePlayerHandler;
+    private final LinkedHashMap<String, CachedResult> results;
+    private long usedBytes;
+
+    StatResultCache(ConfigHandler config, OfflinePlayerHandler offlinePlayerHandler) {
+        this.config = config;
+        this.offlinePlayerHandler = offlinePlayerHandler;
+        results = new LinkedHashMap<>(16, 0.75f, true);
+        usedBytes = 0;
+    }
+
+    /**
+     * Gets the key for this request, which consists of the statistic,
+     * sub-statistic, target and (for top-statistics) size of the top-list,
+     * followed by the number of places that are skipped for a later page.
+     * The ranking for a rank-statistic is the same for every player,
+     * so the playerName is not part of the key.
+     */
+    static String getKey(RequestSettings requestSettings) {
+        String key = getStatKey(requestSettings) + "|" + requestSettings.getTarget();
+        return switch (requestSettings.getTarget()) {
+            case TOP -> requestSettings.getTopListOffset() > 0 ?
+                    key + "|" + requestSettings.getTopListSize() + "|" + requestSettings.getTopListOffset() :
+                    key + "|" + requestSettings.getTopListSize();
+            case PLAYER, SERVER, RANK, PERCENTILE -> key;
+        };
+    }
+
+    /**
+     * Gets the key for the sorted values of all players for this statistic,
+     * which are used for both rank-statistics and exact percentile-statistics.
+     */
+    static String getRankingKey(RequestSettings requestSettings) {
+        return getStatKey(requestSettings) + "|" + Target.RANK;
+    }
+
+    /**
+     * Gets the key for the statistic of this request and the players it
+     * includes: the key of the statistic in the {@link StatIndex}, followed by
+     * the last-played-limit if the request has one of its own.
+     */
+    static String getStatKey(RequestSettings requestSettings) {
+        String key = StatIndex.getKey(requestSettings);
+        return requestSettings.getLastPlayedLimit() != -1 ?
+                key + "|" + requestSettings.getLastPlayedLimit() + "d" : key;
+    }
+
+    synchronized boolean contains(String key) {
+        return getValue(key) != null;
+    }
+
+    /**
+     * @return the cached top-statistic, or null if there is none
+     */
+    synchronized @Nullable TopStatList getTopStats(String key) {
+        Object value = getValue(key);
+        return (value instanceof TopStatList topStats) ? topStats : null;
+    }
+
+    /**
+     * @return the cached server-statistic, or null if there is none
+     */
+    synchronized @Nullable Long getServerStat(String key) {
+        Object value = getValue(key);
+        return (value instanceof Long serverStat) ? serverStat : null;
+    }
+
+    /**
+     * @return the cached values of all players for a rank-statistic (sorted from
+     * low to high), or null if there are none. This array should not be changed.
+     */
+    synchronized @Nullable int[] getRanking(String key) {
+        Object value = getValue(key);
+        return (value instanceof int[] ranking) ? ranking : null;
+    }
+
+    /**
+     * @return the cached histogram for a percentile-statistic, or null if there is none
+     */
+    synchronized @Nullable StatHistogram getHistogram(String key) {
+        Object value = getValue(key);
+        return (value instanceof StatHistogram histogram) ? histogram : null;
+    }
+
+    synchronized void putTopStats(String key, TopStatList topStats, int epoch) {
+        //a reference and an int for each player (the names themselves are shared with the OfflinePlayerHandler)
+        long size = 64 + topStats.size() * 12L;
+        put(key, topStats, epoch, size);
+    }
+
+    synchronized void putServerStat(String key, long serverStat, int epoch) {
+        put(key, serverStat, epoch, 64);
+    }
+
+    synchronized void putRanking(String key, int[] ranking, int epoch) {
+        put(key, ranking, epoch, 64 + ranking.length * 4L);
+    }
+
+    synchronized void putHistogram(String key, StatHistogram histogram, int epoch) {
+        put(key, histogram, epoch, StatHistogram.getSize());
+    }
+
+    /**
+     * Removes all stored results.
+     */
+    synchronized void clear() {
+        results.clear();
+        usedBytes = 0;
+    }
+
+    private @Nullable Object getValue(String key) {
+        CachedResult result = results.get(key);
+        if (result == null) {
+            return null;
+        }
+        if (result.expiryTime() < System.currentTimeMillis() || result.epoch() != offlinePlayerHandler.getEpoch()) {
+            remove(key);
+            return null;
+        }
+        return result.value();
+    }
+
+    private void put(String key, Object value, int epoch, long size) {
+        int cacheTime = config.getResultCacheTime();
+        long maxBytes = config.getResultCacheSize() * 1024L;
+        if (cacheTime <= 0 || size > maxBytes || epoch != offlinePlayerHandler.getEpoch()) {
+            return;
+        }
+        remove(key);
+        results.put(key, new CachedResult(value, epoch, System.currentTimeMillis() + cacheTime * 1000L, size));
+        usedBytes += size;
+
+        //remove the least recently used results until everything fits
+        Iterator<Map.Entry<String, CachedResult>> iterator = results.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedResult> eldest = iterator.next();
+            usedBytes -= eldest.getValue().size();
+            iterator.remove();
+        }
+    }
+
+    private void remove(String key) {
+        CachedResult removed = results.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.size();
+        }
+    }
+
+    private record CachedResult(Object value, int epoch, long expiryTime, long size) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import com.artemis.the.gr8.playerstats.utils.PlayerRegistry;
+
+/**
+ * This Record holds the statistic numbers for all players that are
+ * included in a calculation. The value for the player with ordinal i in
+ * the {@link PlayerRegistry} is stored at position i in values, or 0 if this
+ * player has no value for this statistic (or is not included). The same StatValues
+ * can be used for multiple requests at once, so the values should never be changed.
+ */
+record StatValues(PlayerRegistry players, int[] values) {
+
+    /**
+     * @return the version of the player-list these numbers were calculated for
+     */
+    int epoch() {
+        return players.getEpoch();
+    }
+
+    int size() {
+        return players.size();
+    }
+
+    /**
+     * @return the values of all players that are included, in the order of
+     * their ordinals (this is the shared values array if everyone is included)
+     */
+    int[] includedValues() {
+        if (players.includesAll()) {
+            return values;
+        }
+        int[] included = new int[players.getIncludedCount()];
+        int position = 0;
+        for (int i = 0; i < players.size(); i++) {
+            if (players.isIncluded(i)) {
+                included[position++] = values[i];
+            }
+        }
+        return included;
+    }
+}
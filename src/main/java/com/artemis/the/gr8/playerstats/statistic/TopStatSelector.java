@@ -0,0 +1,192 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import java.util.Arrays;
+
+/**
+ * Selects the highest numbers for a top-statistic, without sorting
+ * all numbers first. Each number is stored together with its index in a
+ * single long (the number in the upper half, the index in the lower half),
+ * so the selection can be done on an array of primitives. For a small top-list,
+ * the numbers go through a bounded min-heap. When the top-list is large
+ * compared to the number of players (such as with a totalTopStatRequest),
+ * a partial quickselect is used instead. For a page further down a
+ * top-statistic, only the places up to the end of that page are selected,
+ * and only the places on the page itself are sorted.
+ */
+final class TopStatSelector {
+
+    private TopStatSelector() {
+    }
+
+    /**
+     * Gets the indices of the highest values, ordered from highest to lowest
+     * value. Equal values are ordered by their index (lowest first).
+     *
+     * @param values the values to select from
+     * @param count the number of values in the array to look at
+     * @param topListSize the maximum number of indices to return
+     * @return the indices of the (at most) topListSize highest values
+     */
+    static int[] selectTop(int[] values, int count, int topListSize) {
+        int k = Math.min(Math.max(topListSize, 0), count);
+        if (k == 0) {
+            return new int[0];
+        }
+
+        long[] selected;
+        if (k <= 1024 && k < count / 8) {
+            selected = selectWithHeap(values, count, k);
+        } else {
+            selected = selectWithQuickselect(values, count, k);
+        }
+
+        Arrays.sort(selected);
+        int[] indices = new int[k];
+        for (int i = 0; i < k; i++) {
+            indices[i] = getIndex(selected[k - 1 - i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Gets the indices of the values on one page of a top-list, ordered from
+     * highest to lowest value, without sorting the places before that page.
+     * Equal values are ordered by their index (lowest first), in the same
+     * way as {@link #selectTop(int[], int, int)}.
+     *
+     * @param values the values to select from
+     * @param count the number of values in the array to look at
+     * @param offset the number of places to skip
+     * @param pageSize the maximum number of indices to return
+     * @return the indices of the (at most) pageSize highest values
+     * after the first offset values
+     */
+    static int[] selectPage(int[] values, int count, int offset, int pageSize) {
+        int end = (int) Math.min((long) Math.max(offset, 0) + Math.max(pageSize, 0), count);
+        int from = Math.min(Math.max(offset, 0), end);
+        if (from == 0) {
+            return selectTop(values, count, end);
+        }
+
+        long[] selected;
+        if (end <= 1024 && end < count / 8) {
+            selected = selectWithHeap(values, count, end);
+        } else {
+            selected = selectWithQuickselect(values, count, end);
+        }
+        //move the places before this page to the front, so only the page itself has to be sorted
+        partitionHighest(selected, end, from);
+
+        Arrays.sort(selected, from, end);
+        int[] indices = new int[end - from];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = getIndex(selected[end - 1 - i]);
+        }
+        return indices;
+    }
+
+    /**
+     * The upper 32 bits hold the value, so sorting these longs sorts by value.
+     * The lower bits hold the inverted index, so equal values put the
+     * lowest index last (which is first, when reading from high to low).
+     */
+    private static long pack(int value, int index) {
+        return ((long) value << 32) | (Integer.MAX_VALUE - index);
+    }
+
+    private static int getIndex(long packed) {
+        return Integer.MAX_VALUE - (int) (packed & 0xFFFFFFFFL);
+    }
+
+    private static long[] selectWithHeap(int[] values, int count, int k) {
+        long[] heap = new long[k];
+        for (int i = 0; i < k; i++) {
+            heap[i] = pack(values[i], i);
+        }
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, k);
+        }
+        for (int i = k; i < count; i++) {
+            long packed = pack(values[i], i);
+            if (packed > heap[0]) {
+                heap[0] = packed;
+                siftDown(heap, 0, k);
+            }
+        }
+        return heap;
+    }
+
+    private static void siftDown(long[] heap, int position, int size) {
+        long value = heap[position];
+        int child;
+        while ((child = 2 * position + 1) < size) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = value;
+    }
+
+    /**
+     * Rearranges all values so the k highest end up in the first k positions.
+     */
+    private static long[] selectWithQuickselect(int[] values, int count, int k) {
+        long[] all = new long[count];
+        for (int i = 0; i < count; i++) {
+            all[i] = pack(values[i], i);
+        }
+        partitionHighest(all, count, k);
+        return Arrays.copyOf(all, k);
+    }
+
+    /**
+     * Rearranges the first size elements of the array,
+     * so the k highest of them end up in the first k positions.
+     */
+    private static void partitionHighest(long[] array, int size, int k) {
+        if (k <= 0 || k >= size) {
+            return;
+        }
+        int left = 0;
+        int right = size - 1;
+        while (left < right) {
+            int pivotPosition = partition(array, left, right, left + (right - left) / 2);
+            if (pivotPosition == k - 1) {
+                break;
+            } else if (pivotPosition < k - 1) {
+                left = pivotPosition + 1;
+            } else {
+                right = pivotPosition - 1;
+            }
+        }
+    }
+
+    /**
+     * Moves everything higher than the pivot to the left of it, and everything lower to the right.
+     *
+     * @return the final position of the pivot
+     */
+    private static int partition(long[] array, int left, int right, int pivotPosition) {
+        long pivot = array[pivotPosition];
+        swap(array, pivotPosition, right);
+        int store = left;
+        for (int i = left; i < right; i++) {
+            if (array[i] > pivot) {
+                swap(array, i, store++);
+            }
+        }
+        swap(array, store, right);
+        return store;
+    }
+
+    private static void swap(long[] array, int i, int j) {
+        long temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+}
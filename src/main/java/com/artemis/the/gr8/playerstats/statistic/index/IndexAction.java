@@ -0,0 +1,119 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import com.artemis.the.gr8.playerstats.ThreadManager;
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The action that reads all statistic files when a {@link StatIndex} is built.
+ */
+final class IndexAction extends RecursiveAction {
+
+    /** The number of files each subtask reads. This is a lot higher than the
+     * regular task threshold, because each subtask produces its own set
+     * of columns that have to be merged afterwards. */
+    static final int chunkSize = 256;
+
+    private final File[] files;
+    private final UUID[] players;
+    private final long[] fileSizes;
+    private final long[] lastModified;
+    private final int start;
+    private final int end;
+
+    private final HashMap<String, StatColumn>[] partialColumns;
+    private final Set<UUID> dirtyPlayers;
+
+    /**
+     * Reads the statistic files and stores the columns for every
+     * {@link #chunkSize} files in partialColumns, so they can be
+     * merged in the right order when everything is done.
+     *
+     * @param files the statistic files to read, where the position of each file is its row-number
+     * @param players the UUIDs that belong to these files
+     * @param fileSizes the array to store the size of each file in, as it was when it was read
+     * @param lastModified the array to store the last-modified-time of each file in
+     * @param partialColumns an array of length (files.length / chunkSize), rounded up
+     * @param dirtyPlayers the Set to add players to whose file could not be read
+     */
+    public IndexAction(File[] files, UUID[] players, long[] fileSizes, long[] lastModified,
+                       HashMap<String, StatColumn>[] partialColumns, Set<UUID> dirtyPlayers) {
+        this(files, players, fileSizes, lastModified, 0, files.length, partialColumns, dirtyPlayers);
+    }
+
+    private IndexAction(File[] files, UUID[] players, long[] fileSizes, long[] lastModified, int start, int end,
+                        HashMap<String, StatColumn>[] partialColumns, Set<UUID> dirtyPlayers) {
+        this.files = files;
+        this.players = players;
+        this.fileSizes = fileSizes;
+        this.lastModified = lastModified;
+        this.start = start;
+        this.end = end;
+
+        this.partialColumns = partialColumns;
+        this.dirtyPlayers = dirtyPlayers;
+    }
+
+    /**
+     * Merges the partial columns of an IndexAction into complete columns.
+     */
+    static HashMap<String, StatColumn> mergeColumns(HashMap<String, StatColumn>[] partialColumns) {
+        HashMap<String, StatColumn> columns = new HashMap<>();
+        for (HashMap<String, StatColumn> partial : partialColumns) {
+            if (partial == null) {
+                continue;
+            }
+            for (Map.Entry<String, StatColumn> column : partial.entrySet()) {
+                columns.computeIfAbsent(column.getKey(), key -> new StatColumn())
+                        .appendAll(column.getValue());
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    protected void compute() {
+        final int length = end - start;
+        if (length <= chunkSize) {
+            process();
+        }
+        else {
+            MyLogger.subActionCreated(Thread.currentThread().getName());
+            //split on a chunk boundary, so every chunk is read by one subtask
+            final int chunks = (length + chunkSize - 1) / chunkSize;
+            final int split = start + (chunks / 2) * chunkSize;
+            final IndexAction subTask1 = new IndexAction(files, players, fileSizes, lastModified, start, split,
+                    partialColumns, dirtyPlayers);
+            final IndexAction subTask2 = new IndexAction(files, players, fileSizes, lastModified, split, end,
+                    partialColumns, dirtyPlayers);
+
+            invokeAll(subTask1, subTask2);
+        }
+    }
+
+    private void process() {
+        HashMap<String, StatColumn> columns = new HashMap<>();
+        MyLogger.actionRunning(Thread.currentThread().getName());
+        for (int row = start; row < end; row++) {
+            final int currentRow = row;
+            fileSizes[row] = files[row].length();
+            lastModified[row] = files[row].lastModified();
+            try {
+                ThreadManager.runBlocking(() -> StatFileParser.parse(files[currentRow], (key, value) ->
+                        columns.computeIfAbsent(key, k -> new StatColumn()).append(currentRow, value)));
+            } catch (IOException | RuntimeException e) {
+                MyLogger.logMediumLevelMsg("Could not index " + files[row].getName() + ": " + e);
+                dirtyPlayers.add(players[row]);
+                lastModified[row] = -1;  //so the StatIndexRefresher will try again
+            }
+        }
+        partialColumns[start / chunkSize] = columns;
+    }
+}
@@ -0,0 +1,134 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The values of a single statistic for all rows of a {@link StatIndex}.
+ * Most players only have a small part of all possible statistics in their
+ * statistic file, so a column only stores the rows that actually have a
+ * value, sorted by row number.
+ */
+public final class StatColumn {
+
+    private int[] rows;
+    private int[] values;
+    private int size;
+
+    StatColumn() {
+        rows = new int[8];
+        values = new int[8];
+        size = 0;
+    }
+
+    private StatColumn(int[] rows, int[] values) {
+        this.rows = rows;
+        this.values = values;
+        size = rows.length;
+    }
+
+    /**
+     * Gets the value that is stored for this row.
+     *
+     * @param row the row-number of the player in the {@link StatIndex}
+     * @return the value, or 0 if this player has no value for this statistic
+     */
+    public int get(int row) {
+        int position = Arrays.binarySearch(rows, 0, size, row);
+        return position >= 0 ? values[position] : 0;
+    }
+
+    /**
+     * @return the number of rows that have a value in this column
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position a position between 0 and {@link #size()}
+     * @return the row-number stored at this position
+     */
+    public int getRow(int position) {
+        return rows[position];
+    }
+
+    /**
+     * @param position a position between 0 and {@link #size()}
+     * @return the value stored at this position
+     */
+    public int getValue(int position) {
+        return values[position];
+    }
+
+    /**
+     * Adds a value to the end of this column. The row
+     * has to be bigger than all rows already in this column.
+     */
+    void append(int row, int value) {
+        ensureCapacity(size + 1);
+        rows[size] = row;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Adds all values of the other column to the end of this one. All rows
+     * in the other column have to be bigger than the rows in this column.
+     */
+    void appendAll(StatColumn other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.rows, 0, rows, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Changes the value stored for this row, inserting the
+     * row if it is not in this column yet.
+     */
+    void set(int row, int value) {
+        int position = Arrays.binarySearch(rows, 0, size, row);
+        if (position >= 0) {
+            values[position] = value;
+        }
+        else if (value != 0) {
+            position = -position - 1;
+            ensureCapacity(size + 1);
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            System.arraycopy(values, position, values, position + 1, size - position);
+            rows[position] = row;
+            values[position] = value;
+            size++;
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(rows[i]);
+            out.writeInt(values[i]);
+        }
+    }
+
+    static StatColumn read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        int[] rows = new int[size];
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = in.readInt();
+            values[i] = in.readInt();
+        }
+        return new StatColumn(rows, values);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > rows.length) {
+            int newLength = Math.max(capacity, rows.length * 2);
+            rows = Arrays.copyOf(rows, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+    }
+}
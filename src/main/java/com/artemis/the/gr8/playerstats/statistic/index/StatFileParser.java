@@ -0,0 +1,435 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Reads the statistic files Minecraft stores for each player
+ * in the stats folder of the main world. Because these files all
+ * look the same, they are not parsed into a tree of JSON-objects, but
+ * scanned byte by byte: the numbers are read straight from the file,
+ * and the keys are looked up in a table, so the same String is handed
+ * out every time. Every thread has its own parser, with a buffer that
+ * is reused for every file, so reading a file creates almost no garbage.
+ * If a file does not look the way it should, it is read with Gson instead.
+ */
+final class StatFileParser {
+
+    private static final ThreadLocal<StatFileParser> parsers = ThreadLocal.withInitial(StatFileParser::new);
+    private static final byte[] statsKey = "stats".getBytes(StandardCharsets.US_ASCII);
+
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+
+    //the statistics found in the current file, which are only passed on once the entire file is read
+    private String[] foundKeys;
+    private int[] foundValues;
+    private int foundCount;
+
+    //the keys this parser has seen before, in an open-addressing hash table
+    private int[] keyHashes;
+    private byte[][] keyBytes;
+    private String[] keys;
+    private int keyCount;
+
+    private StatFileParser() {
+        buffer = ByteBuffer.allocate(64 * 1024);
+        foundKeys = new String[256];
+        foundValues = new int[256];
+        keyHashes = new int[1024];
+        keyBytes = new byte[1024][];
+        keys = new String[1024];
+    }
+
+    /**
+     * Reads a statistic file, and passes every statistic in it to the consumer,
+     * together with its key (such as "minecraft:mined/minecraft:stone").
+     * Statistics with a value of 0 are skipped.
+     *
+     * @param file the statistic file to read
+     * @param consumer the consumer that receives the keys and values
+     * @throws IOException if the file could not be read
+     * @throws RuntimeException if the file is not a valid statistic file
+     */
+    static void parse(File file, ObjIntConsumer<String> consumer) throws IOException {
+        if (!tryScan(file, consumer)) {
+            parseWithGson(file, consumer);
+        }
+    }
+
+    /**
+     * Reads a statistic file byte by byte, without falling back to Gson.
+     * Nothing is passed to the consumer if the file does not look the way it should.
+     *
+     * @return true if the file was read, or false if it has to be read with Gson
+     * @throws IOException if the file could not be read
+     */
+    static boolean tryScan(File file, ObjIntConsumer<String> consumer) throws IOException {
+        StatFileParser parser = parsers.get();
+        parser.readFile(file);
+        parser.foundCount = 0;
+        try {
+            parser.scanRoot();
+        } catch (MalformedStatFileException e) {
+            return false;
+        }
+        for (int i = 0; i < parser.foundCount; i++) {
+            consumer.accept(parser.foundKeys[i], parser.foundValues[i]);
+        }
+        return true;
+    }
+
+    private void readFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large: " + file.getName());
+            }
+            if (size > buffer.capacity()) {
+                buffer = ByteBuffer.allocate((int) size);
+            }
+            buffer.clear();
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            }
+            position = 0;
+            limit = buffer.position();
+        }
+    }
+
+    private void scanRoot() {
+        expect('{');
+        if (skipWhitespaceAndCheck('}')) {
+            return;
+        }
+        do {
+            int keyStart = readKey();
+            int keyEnd = position - 1;
+            expect(':');
+            if (equals(keyStart, keyEnd, statsKey)) {
+                scanStats();
+            } else {
+                skipValue();
+            }
+        } while (nextMember('}'));
+    }
+
+    private void scanStats() {
+        expect('{');
+        if (skipWhitespaceAndCheck('}')) {
+            return;
+        }
+        do {
+            int typeStart = readKey();
+            int typeEnd = position - 1;
+            expect(':');
+            expect('{');
+            if (!skipWhitespaceAndCheck('}')) {
+                do {
+                    int statStart = readKey();
+                    int statEnd = position - 1;
+                    expect(':');
+                    int value = readInt();
+                    if (value != 0) {
+                        found(getKey(typeStart, typeEnd, statStart, statEnd), value);
+                    }
+                } while (nextMember('}'));
+            }
+        } while (nextMember('}'));
+    }
+
+    private void found(String key, int value) {
+        if (foundCount == foundKeys.length) {
+            foundKeys = Arrays.copyOf(foundKeys, foundCount * 2);
+            foundValues = Arrays.copyOf(foundValues, foundCount * 2);
+        }
+        foundKeys[foundCount] = key;
+        foundValues[foundCount] = value;
+        foundCount++;
+    }
+
+    /**
+     * Reads a String in quotes, and returns the position where its content starts.
+     * Afterwards, the position is right after the closing quote.
+     */
+    private int readKey() {
+        expect('"');
+        int start = position;
+        while (position < limit) {
+            byte b = buffer.get(position++);
+            if (b == '"') {
+                return start;
+            } else if (b == '\\') {
+                throw new MalformedStatFileException();
+            }
+        }
+        throw new MalformedStatFileException();
+    }
+
+    private int readInt() {
+        skipWhitespace();
+        boolean negative = false;
+        if (position < limit && buffer.get(position) == '-') {
+            negative = true;
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new MalformedStatFileException();
+            }
+            position++;
+            digits++;
+        }
+        if (digits == 0 || (position < limit && isNumberContinuation(buffer.get(position)))) {
+            throw new MalformedStatFileException();
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new MalformedStatFileException();
+        }
+        return (int) value;
+    }
+
+    private static boolean isNumberContinuation(byte b) {
+        return b == '.' || b == 'e' || b == 'E';
+    }
+
+    /**
+     * Skips any JSON value (String, number, literal, object or array).
+     */
+    private void skipValue() {
+        skipWhitespace();
+        int depth = 0;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            switch (b) {
+                case '"' -> readKey();
+                case '{', '[' -> {
+                    depth++;
+                    position++;
+                }
+                case '}', ']' -> {
+                    if (depth == 0) {
+                        return;
+                    }
+                    depth--;
+                    position++;
+                }
+                case ',' -> {
+                    if (depth == 0) {
+                        return;
+                    }
+                    position++;
+                }
+                default -> position++;
+            }
+            if (depth == 0 && (b == '"' || b == '}' || b == ']')) {
+                return;
+            }
+        }
+        throw new MalformedStatFileException();
+    }
+
+    /**
+     * @return true if there is another member in this object (after a comma),
+     * or false if the object ends here
+     */
+    private boolean nextMember(char closingChar) {
+        skipWhitespace();
+        if (position < limit) {
+            byte b = buffer.get(position++);
+            if (b == ',') {
+                return true;
+            } else if (b == closingChar) {
+                return false;
+            }
+        }
+        throw new MalformedStatFileException();
+    }
+
+    private boolean skipWhitespaceAndCheck(char c) {
+        skipWhitespace();
+        if (position < limit && buffer.get(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (position >= limit || buffer.get(position) != c) {
+            throw new MalformedStatFileException();
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean equals(int start, int end, byte[] bytes) {
+        if (end - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the key for this type and statistic (the same String instance every time),
+     * without creating any new objects if this key has been seen before.
+     */
+    private String getKey(int typeStart, int typeEnd, int statStart, int statEnd) {
+        int length = (typeEnd - typeStart) + 1 + (statEnd - statStart);
+        int hash = 1;
+        for (int i = typeStart; i < typeEnd; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        hash = 31 * hash + '/';
+        for (int i = statStart; i < statEnd; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+
+        int mask = keys.length - 1;
+        int slot = mix(hash) & mask;
+        while (keys[slot] != null) {
+            if (keyHashes[slot] == hash && keyBytes[slot].length == length &&
+                    matches(keyBytes[slot], typeStart, typeEnd, statStart, statEnd)) {
+                return keys[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] bytes = new byte[length];
+        int typeLength = typeEnd - typeStart;
+        for (int i = 0; i < typeLength; i++) {
+            bytes[i] = buffer.get(typeStart + i);
+        }
+        bytes[typeLength] = '/';
+        for (int i = 0; i < statEnd - statStart; i++) {
+            bytes[typeLength + 1 + i] = buffer.get(statStart + i);
+        }
+        String key = new String(bytes, StandardCharsets.UTF_8);
+        keyHashes[slot] = hash;
+        keyBytes[slot] = bytes;
+        keys[slot] = key;
+        if (++keyCount * 2 > keys.length) {
+            growKeyTable();
+        }
+        return key;
+    }
+
+    private boolean matches(byte[] bytes, int typeStart, int typeEnd, int statStart, int statEnd) {
+        int typeLength = typeEnd - typeStart;
+        for (int i = 0; i < typeLength; i++) {
+            if (bytes[i] != buffer.get(typeStart + i)) {
+                return false;
+            }
+        }
+        if (bytes[typeLength] != '/') {
+            return false;
+        }
+        for (int i = 0; i < statEnd - statStart; i++) {
+            if (bytes[typeLength + 1 + i] != buffer.get(statStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void growKeyTable() {
+        int[] oldHashes = keyHashes;
+        byte[][] oldBytes = keyBytes;
+        String[] oldKeys = keys;
+        keyHashes = new int[oldKeys.length * 2];
+        keyBytes = new byte[oldKeys.length * 2][];
+        keys = new String[oldKeys.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = mix(oldHashes[i]) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keyHashes[slot] = oldHashes[i];
+                keyBytes[slot] = oldBytes[i];
+                keys[slot] = oldKeys[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Reads a statistic file with Gson. This is slower and creates a lot more garbage,
+     * but it can read any valid JSON-file.
+     *
+     * @throws IOException if the file could not be read
+     * @throws RuntimeException if the file is not valid JSON
+     */
+    static void parseWithGson(File file, ObjIntConsumer<String> consumer) throws IOException {
+        JsonObject stats;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            stats = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonObject("stats");
+        }
+        if (stats == null) {
+            return;
+        }
+        for (Map.Entry<String, JsonElement> type : stats.entrySet()) {
+            if (!type.getValue().isJsonObject()) {
+                continue;
+            }
+            for (Map.Entry<String, JsonElement> stat : type.getValue().getAsJsonObject().entrySet()) {
+                int value = stat.getValue().getAsInt();
+                if (value != 0) {
+                    consumer.accept(type.getKey() + "/" + stat.getKey(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Thrown when a file does not look like a regular statistic file.
+     * It has no stacktrace, because it is only used to fall back to Gson.
+     */
+    private static final class MalformedStatFileException extends RuntimeException {
+
+        MalformedStatFileException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import com.artemis.the.gr8.playerstats.msg.msgutils.LanguageKeyHandler;
+import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
+import com.artemis.the.gr8.playerstats.statistic.request.RequestSettings;
+import org.bukkit.Statistic;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory, column-based copy of all statistic files in the stats
+ * folder of the main world. Every player with a statistic file gets a row,
+ * and every statistic/sub-statistic combination that appears in any of
+ * those files gets a {@link StatColumn} with the values for each row.
+ * This allows the {@link StatCalculator} to get the numbers for a top- or
+ * server-statistic from memory, instead of having Bukkit parse the
+ * statistic file of every single player again.
+ *
+ * <p>Players that have been online since their file was read are
+ * marked as dirty, because their statistics have changed since.
+ * For those players, {@link #getRow(UUID)} returns -1.
+ *
+ * <p>For each row, the size and last-modified-time of the file it was read
+ * from are stored as well, so the {@link StatIndexRefresher} can update the
+ * rows of files that have changed. Anyone reading from the index should
+ * hold the {@link #readLock()} while doing so.
+ */
+public final class StatIndex {
+
+    private static final StatColumn emptyColumn = new StatColumn();
+
+    private UUID[] players;
+    private long[] fileSizes;
+    private long[] lastModified;
+    private int playerCount;
+
+    private final HashMap<UUID, Integer> rows;
+    private final HashMap<String, StatColumn> columns;
+    private final Set<UUID> dirtyPlayers;
+    private final ReentrantReadWriteLock lock;
+
+    StatIndex(UUID[] players, long[] fileSizes, long[] lastModified,
+              HashMap<String, StatColumn> columns, Set<UUID> dirtyPlayers) {
+        this.players = players;
+        this.fileSizes = fileSizes;
+        this.lastModified = lastModified;
+        this.columns = columns;
+        this.dirtyPlayers = dirtyPlayers;
+        playerCount = players.length;
+        lock = new ReentrantReadWriteLock();
+
+        rows = new HashMap<>(players.length * 2);
+        for (int i = 0; i < players.length; i++) {
+            rows.put(players[i], i);
+        }
+    }
+
+    /**
+     * Gets the lock that should be held while reading from this index,
+     * so its rows cannot be updated halfway through a calculation.
+     *
+     * @return the read-lock
+     */
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Gets the key under which the statistic of this RequestSettings
+     * is stored in the statistic files (and in this index), such as
+     * "minecraft:mined/minecraft:diamond_ore".
+     *
+     * @param requestSettings a validated RequestSettings object
+     * @return the key
+     */
+    public static @NotNull String getKey(@NotNull RequestSettings requestSettings) {
+        Statistic statistic = requestSettings.getStatistic();
+        String statName = LanguageKeyHandler.getStatName(statistic);
+        return switch (statistic.getType()) {
+            case UNTYPED -> "minecraft:custom/minecraft:" + statName;
+            case BLOCK -> "minecraft:" + statName + "/" + requestSettings.getBlock().getKey();
+            case ITEM -> "minecraft:" + statName + "/" + requestSettings.getItem().getKey();
+            case ENTITY -> "minecraft:" + statName + "/" + requestSettings.getEntity().getKey();
+        };
+    }
+
+    /**
+     * Gets the row this player's statistics are stored in.
+     *
+     * @param uuid the UUID of the player
+     * @return the row-number, or -1 if this player is not in the index or
+     * has been online since their statistics were indexed
+     */
+    public int getRow(UUID uuid) {
+        Integer row = rows.get(uuid);
+        if (row == null || dirtyPlayers.contains(uuid)) {
+            return -1;
+        }
+        return row;
+    }
+
+    /**
+     * Gets the column with all values for the given statistic-key.
+     *
+     * @param key a key as returned by {@link #getKey(RequestSettings)}
+     * @return the StatColumn (which will be empty if no player has
+     * a value for this statistic)
+     */
+    public @NotNull StatColumn getColumn(String key) {
+        return columns.getOrDefault(key, emptyColumn);
+    }
+
+    /**
+     * @return the number of players in this index
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Checks whether the file of this player is the same as it was
+     * when it was last read into this index.
+     */
+    boolean isUpToDate(UUID uuid, long fileSize, long modified) {
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(uuid);
+            return row != null && fileSizes[row] == fileSize && lastModified[row] == modified;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the row of this player with the statistics from their
+     * (changed) file, or adds a new row if this player is not in the index yet.
+     *
+     * @param uuid the UUID of the player
+     * @param fileSize the size of the file the statistics were read from
+     * @param modified the last-modified-time of that file
+     * @param stats all statistics in the file, with their keys
+     */
+    void updatePlayer(UUID uuid, long fileSize, long modified, HashMap<String, Integer> stats) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(uuid);
+            if (row == null) {
+                row = addPlayer(uuid);
+            }
+            fileSizes[row] = fileSize;
+            lastModified[row] = modified;
+
+            for (String key : stats.keySet()) {
+                columns.computeIfAbsent(key, k -> new StatColumn());
+            }
+            for (Map.Entry<String, StatColumn> column : columns.entrySet()) {
+                column.getValue().set(row, stats.getOrDefault(column.getKey(), 0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int addPlayer(UUID uuid) {
+        if (playerCount == players.length) {
+            int newLength = Math.max(16, playerCount * 2);
+            players = Arrays.copyOf(players, newLength);
+            fileSizes = Arrays.copyOf(fileSizes, newLength);
+            lastModified = Arrays.copyOf(lastModified, newLength);
+        }
+        int row = playerCount++;
+        players[row] = uuid;
+        rows.put(uuid, row);
+        return row;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                writeUUID(out, players[i]);
+                out.writeLong(fileSizes[i]);
+                out.writeLong(lastModified[i]);
+            }
+            out.writeInt(columns.size());
+            for (Map.Entry<String, StatColumn> column : columns.entrySet()) {
+                out.writeUTF(column.getKey());
+                column.getValue().write(out);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static StatIndex read(DataInputStream in, Set<UUID> dirtyPlayers) throws IOException {
+        int playerCount = in.readInt();
+        UUID[] players = new UUID[playerCount];
+        long[] fileSizes = new long[playerCount];
+        long[] lastModified = new long[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            players[i] = readUUID(in);
+            fileSizes[i] = in.readLong();
+            lastModified[i] = in.readLong();
+        }
+        int columnCount = in.readInt();
+        HashMap<String, StatColumn> columns = new HashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            columns.put(in.readUTF(), StatColumn.read(in));
+        }
+        return new StatIndex(players, fileSizes, lastModified, columns, dirtyPlayers);
+    }
+
+    static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    static UUID readUUID(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
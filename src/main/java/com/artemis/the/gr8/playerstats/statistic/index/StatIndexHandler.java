@@ -0,0 +1,284 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.ThreadManager;
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds, stores and loads the {@link StatIndex}. The index is saved
+ * as "stat-index.dat" in PlayerStats' data folder when the plugin is disabled,
+ * so it only needs to be built from scratch the very first time, or when
+ * the file is missing or outdated. While the plugin is running, a
+ * {@link StatIndexRefresher} reads the files that change in the stats
+ * folder again, so the index stays up-to-date without a full rebuild.
+ */
+public final class StatIndexHandler {
+
+    private static final int formatVersion = 2;
+
+    private final File indexFile;
+    private final Set<UUID> dirtyPlayers;
+    private final Set<UUID> onlinePlayers;
+    private volatile File statsFolder;
+    private volatile StatIndex statIndex;
+    private StatIndexRefresher refresher;
+
+    public StatIndexHandler(Main plugin) {
+        indexFile = new File(plugin.getDataFolder(), "stat-index.dat");
+        dirtyPlayers = ConcurrentHashMap.newKeySet();
+        onlinePlayers = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Gets the current StatIndex.
+     *
+     * @return the StatIndex, or null if it has not been loaded or built yet
+     */
+    public @Nullable StatIndex getStatIndex() {
+        return statIndex;
+    }
+
+    /**
+     * Marks a player as dirty, so their statistics will no longer be
+     * taken from the StatIndex. This should happen whenever a player
+     * comes online, because from that moment on, their statistics
+     * will be different from the ones in their statistic file.
+     * The player stays dirty until their file has been read again
+     * after they went offline.
+     *
+     * @param uuid the UUID of the player
+     */
+    public void markDirty(UUID uuid) {
+        onlinePlayers.add(uuid);
+        dirtyPlayers.add(uuid);
+    }
+
+    /**
+     * Lets the StatIndexHandler know this player has gone offline, so the
+     * next time their statistic file changes, their statistics can
+     * be taken from the StatIndex again.
+     *
+     * @param uuid the UUID of the player
+     */
+    public void markOffline(UUID uuid) {
+        onlinePlayers.remove(uuid);
+    }
+
+    /**
+     * Loads the StatIndex from the data folder, or builds a new one
+     * from the stats folder if there is no (valid) saved index.
+     * Afterwards, a {@link StatIndexRefresher} is started to keep it up-to-date.
+     * The stats folder is looked up here once, so the refresher doesn't
+     * have to ask Bukkit for the worlds from its own thread.
+     */
+    public void loadOrBuild() {
+        statsFolder = new File(Bukkit.getWorlds().get(0).getWorldFolder(), "stats");
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            markDirty(player.getUniqueId());
+        }
+        if (!indexFile.exists() || !load()) {
+            build();
+        }
+        startRefresher();
+    }
+
+    /**
+     * Reads the statistic files of all players in the stats folder
+     * of the main world, and replaces the current StatIndex with the result.
+     */
+    public void build() {
+        long time = System.currentTimeMillis();
+        File[] statFiles = getStatFiles();
+        if (statFiles == null) {
+            return;
+        }
+
+        ArrayList<File> files = new ArrayList<>(statFiles.length);
+        ArrayList<UUID> players = new ArrayList<>(statFiles.length);
+        for (File file : statFiles) {
+            UUID uuid = getUUID(file);
+            if (uuid != null) {
+                files.add(file);
+                players.add(uuid);
+            }
+        }
+
+        //only players that are online right now have statistics that differ from their file
+        dirtyPlayers.retainAll(onlinePlayers);
+
+        @SuppressWarnings("unchecked")
+        HashMap<String, StatColumn>[] partialColumns =
+                new HashMap[(files.size() + IndexAction.chunkSize - 1) / IndexAction.chunkSize];
+        UUID[] playerArray = players.toArray(UUID[]::new);
+        long[] fileSizes = new long[playerArray.length];
+        long[] lastModified = new long[playerArray.length];
+
+        IndexAction task = new IndexAction(files.toArray(File[]::new), playerArray,
+                fileSizes, lastModified, partialColumns, dirtyPlayers);
+        MyLogger.actionCreated(files.size());
+        ThreadManager.getWorkerPool().invoke(task);
+        MyLogger.actionFinished();
+
+        statIndex = new StatIndex(playerArray, fileSizes, lastModified,
+                IndexAction.mergeColumns(partialColumns), dirtyPlayers);
+        MyLogger.logLowLevelTask("StatIndexHandler",
+                ("indexed statistics for " + playerArray.length + " players"), time);
+    }
+
+    /**
+     * Compares every file in the stats folder with the StatIndex,
+     * and reads the ones that have changed again.
+     */
+    void refreshAll() {
+        File[] statFiles = getStatFiles();
+        if (statFiles != null) {
+            refresh(statFiles);
+        }
+    }
+
+    /**
+     * Reads the given statistic files again if they have changed since they
+     * were last read, and updates the rows for these players in the StatIndex.
+     *
+     * @param statFiles the files to check
+     */
+    void refresh(File[] statFiles) {
+        StatIndex index = statIndex;
+        if (index == null) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        int updated = 0;
+        for (File file : statFiles) {
+            UUID uuid = getUUID(file);
+            long fileSize = file.length();
+            long modified = file.lastModified();
+            if (uuid == null || modified == 0 || index.isUpToDate(uuid, fileSize, modified)) {
+                continue;
+            }
+            HashMap<String, Integer> stats = new HashMap<>();
+            try {
+                StatFileParser.parse(file, stats::put);
+            } catch (IOException | RuntimeException e) {
+                //keep the old manifest entry, so this file is tried again next time
+                MyLogger.logMediumLevelMsg("Could not index " + file.getName() + ": " + e);
+                dirtyPlayers.add(uuid);
+                continue;
+            }
+            index.updatePlayer(uuid, fileSize, modified, stats);
+            if (!onlinePlayers.contains(uuid)) {
+                dirtyPlayers.remove(uuid);
+            }
+            updated++;
+        }
+        if (updated > 0) {
+            MyLogger.logMediumLevelTask("StatIndexHandler",
+                    ("refreshed statistics for " + updated + " players"), time);
+        }
+    }
+
+    /**
+     * Stops the {@link StatIndexRefresher}, if it is running.
+     */
+    public void stopRefresher() {
+        if (refresher != null) {
+            refresher.interrupt();
+            try {
+                refresher.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            refresher = null;
+        }
+    }
+
+    /**
+     * Saves the current StatIndex to the data folder.
+     */
+    public void save() {
+        StatIndex index = statIndex;
+        if (index == null) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try {
+            Files.createDirectories(indexFile.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(formatVersion);
+                index.write(out);
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            MyLogger.logMediumLevelTask("StatIndexHandler", "saved stat-index", time);
+        } catch (IOException e) {
+            MyLogger.logException(e, "StatIndexHandler", "save()");
+        }
+    }
+
+    private void startRefresher() {
+        stopRefresher();
+        if (statIndex != null) {
+            refresher = new StatIndexRefresher(this, statsFolder);
+            refresher.start();
+        }
+    }
+
+    private boolean load() {
+        long time = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != formatVersion) {
+                return false;
+            }
+            statIndex = StatIndex.read(in, dirtyPlayers);
+        } catch (IOException e) {
+            MyLogger.logException(e, "StatIndexHandler", "load()");
+            return false;
+        }
+        MyLogger.logLowLevelTask("StatIndexHandler",
+                ("loaded stat-index for " + statIndex.getPlayerCount() + " players"), time);
+
+        //read the files that have changed while PlayerStats was not running
+        refreshAll();
+        return true;
+    }
+
+    /**
+     * @return the statistic files in the stats folder, or null if the folder
+     * has not been looked up yet or could not be read
+     */
+    private @Nullable File[] getStatFiles() {
+        File statsFolder = this.statsFolder;
+        if (statsFolder == null) {
+            return null;
+        }
+        File[] statFiles = statsFolder.listFiles((dir, name) -> name.endsWith(".json"));
+        if (statFiles == null) {
+            MyLogger.logWarning("Could not find the stats folder at " + statsFolder.getPath());
+        }
+        return statFiles;
+    }
+
+    private static @Nullable UUID getUUID(File statFile) {
+        String name = statFile.getName();
+        try {
+            return UUID.fromString(name.substring(0, name.length() - ".json".length()));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import com.artemis.the.gr8.playerstats.utils.MyLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Thread that keeps the {@link StatIndex} up-to-date. It watches the
+ * stats folder for files that are created or changed, and lets the
+ * {@link StatIndexHandler} read only those files again. Because a
+ * WatchService does not work on every file system, it also compares
+ * the entire stats folder with the index every few minutes.
+ */
+final class StatIndexRefresher extends Thread {
+
+    private static final long fullScanInterval = 5 * 60 * 1000;
+    /** Time to wait after a change, because Minecraft might still be writing to the file. */
+    private static final long settleTime = 2000;
+
+    private final StatIndexHandler statIndexHandler;
+    private final File statsFolder;
+
+    public StatIndexRefresher(StatIndexHandler statIndexHandler, File statsFolder) {
+        this.statIndexHandler = statIndexHandler;
+        this.statsFolder = statsFolder;
+
+        this.setName("StatIndexRefresher");
+        this.setDaemon(true);
+        MyLogger.logHighLevelMsg(this.getName() + " created!");
+    }
+
+    @Override
+    public void run() {
+        WatchService watchService = null;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            statsFolder.toPath().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            MyLogger.logMediumLevelMsg("Could not watch the stats folder for changes, " +
+                    "falling back to checking it every few minutes (" + e + ")");
+            closeQuietly(watchService);
+            watchService = null;
+        }
+
+        long lastFullScan = System.currentTimeMillis();
+        try {
+            while (!isInterrupted()) {
+                long waitTime = Math.max(0, lastFullScan + fullScanInterval - System.currentTimeMillis());
+                if (watchService != null) {
+                    WatchKey watchKey = watchService.poll(waitTime, TimeUnit.MILLISECONDS);
+                    if (watchKey != null) {
+                        Thread.sleep(settleTime);
+                        HashSet<String> changedFiles = new HashSet<>();
+                        boolean overflow = false;
+                        while (watchKey != null) {
+                            overflow |= collectChanges(watchKey, changedFiles);
+                            watchKey = watchService.poll();
+                        }
+                        if (overflow) {
+                            statIndexHandler.refreshAll();
+                            lastFullScan = System.currentTimeMillis();
+                        } else {
+                            statIndexHandler.refresh(changedFiles.stream()
+                                    .map(fileName -> new File(statsFolder, fileName))
+                                    .toArray(File[]::new));
+                        }
+                    }
+                } else {
+                    Thread.sleep(waitTime);
+                }
+                if (System.currentTimeMillis() - lastFullScan >= fullScanInterval) {
+                    statIndexHandler.refreshAll();
+                    lastFullScan = System.currentTimeMillis();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            MyLogger.logHighLevelMsg(this.getName() + " stopped");
+        } finally {
+            closeQuietly(watchService);
+        }
+    }
+
+    /**
+     * @return true if events were lost, and the entire folder should be checked
+     */
+    private static boolean collectChanges(WatchKey watchKey, HashSet<String> changedFiles) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path path) {
+                String fileName = path.toString();
+                if (fileName.endsWith(".json")) {
+                    changedFiles.add(fileName);
+                }
+            }
+        }
+        watchKey.reset();
+        return overflow;
+    }
+
+    private static void closeQuietly(WatchService watchService) {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.artemis.the.gr8.playerstats.statistic.request;
+
+import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.statistic.StatBatch;
+import com.artemis.the.gr8.playerstats.statistic.result.FormattedMessage;
+import com.artemis.the.gr8.playerstats.statistic.result.PercentileStatResult;
+import com.artemis.the.gr8.playerstats.api.RequestGenerator;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+
+public final class PercentileStatRequest extends StatRequest<LinkedHashMap<Integer, Integer>> implements RequestGenerator<LinkedHashMap<Integer, Integer>> {
+
+    private final RequestHandler requestHandler;
+
+    public PercentileStatRequest(RequestSettings request) {
+        super(request);
+        requestHandler = new RequestHandler(request);
+    }
+
+    @Override
+    public PercentileStatRequest untyped(@NotNull Statistic statistic) {
+        RequestSettings completedRequest = requestHandler.untyped(statistic);
+        return new PercentileStatRequest(completedRequest);
+    }
+
+    @Override
+    public PercentileStatRequest blockOrItemType(@NotNull Statistic statistic, @NotNull Material material) {
+        RequestSettings completedRequest = requestHandler.blockOrItemType(statistic, material);
+        return new PercentileStatRequest(completedRequest);
+    }
+
+    @Override
+    public PercentileStatRequest entityType(@NotNull Statistic statistic, @NotNull EntityType entityType) {
+        RequestSettings completedRequest = requestHandler.entityType(statistic, entityType);
+        return new PercentileStatRequest(completedRequest);
+    }
+
+    @Override
+    public PercentileStatResult execute() {
+        return getStatResult(super.requestSettings);
+    }
+
+    @Override
+    PercentileStatResult execute(StatBatch statBatch) {
+        return getStatResult(requestSettings, statBatch.getPercentiles(requestSettings));
+    }
+
+    private PercentileStatResult getStatResult(RequestSettings completedRequest) {
+        LinkedHashMap<Integer, Integer> stat = Main
+                .getStatCalculator()
+                .getPercentiles(completedRequest);
+        return getStatResult(completedRequest, stat);
+    }
+
+    private PercentileStatResult getStatResult(RequestSettings completedRequest, LinkedHashMap<Integer, Integer> stat) {
+        FormattedMessage formattedMessage = new FormattedMessage(() -> Main
+                .getStatFormatter()
+                .formatAndSavePercentileStat(completedRequest, stat));
+
+        return new PercentileStatResult(stat, formattedMessage);
+    }
+}
\ No newline at end of file
@@ -1,10 +1,9 @@
 package com.artemis.the.gr8.playerstats.statistic.request;
 
 import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.statistic.result.FormattedMessage;
 import com.artemis.the.gr8.playerstats.statistic.result.PlayerStatResult;
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
-import com.artemis.the.gr8.playerstats.msg.components.ComponentUtils;
-import net.kyori.adventure.text.TextComponent;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
 import org.bukkit.entity.EntityType;
@@ -47,14 +46,10 @@ public final class PlayerStatRequest extends StatRequest<Integer> implements Req
                 .getStatCalculator()
                 .getPlayerStat(completedRequest);
 
-        TextComponent prettyComponent = Main
+        FormattedMessage formattedMessage = new FormattedMessage(() -> Main
                 .getStatFormatter()
-                .formatAndSavePlayerStat(completedRequest, stat);
+                .formatAndSavePlayerStat(completedRequest, stat));
 
-        String prettyString = ComponentUtils
-                .getTranslatableComponentSerializer()
-                .serialize(prettyComponent);
-
-        return new PlayerStatResult(stat, prettyComponent, prettyString);
+        return new PlayerStatResult(stat, formattedMessage);
     }
 }
\ No newline at end of file
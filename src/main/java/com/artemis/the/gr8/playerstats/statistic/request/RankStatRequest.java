@@ -0,0 +1,69 @@
+package com.artemis.the.gr8.playerstats.statistic.request;
+
+import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.statistic.PlayerRank;
+import com.artemis.the.gr8.playerstats.statistic.StatBatch;
+import com.artemis.the.gr8.playerstats.statistic.StatCalculator;
+import com.artemis.the.gr8.playerstats.statistic.result.FormattedMessage;
+import com.artemis.the.gr8.playerstats.statistic.result.RankStatResult;
+import com.artemis.the.gr8.playerstats.api.RequestGenerator;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+public final class RankStatRequest extends StatRequest<Integer> implements RequestGenerator<Integer> {
+
+    private final RequestHandler requestHandler;
+
+    public RankStatRequest(RequestSettings request) {
+        super(request);
+        requestHandler = new RequestHandler(request);
+    }
+
+    @Override
+    public RankStatRequest untyped(@NotNull Statistic statistic) {
+        RequestSettings completedRequest = requestHandler.untyped(statistic);
+        return new RankStatRequest(completedRequest);
+    }
+
+    @Override
+    public RankStatRequest blockOrItemType(@NotNull Statistic statistic, @NotNull Material material) {
+        RequestSettings completedRequest = requestHandler.blockOrItemType(statistic, material);
+        return new RankStatRequest(completedRequest);
+    }
+
+    @Override
+    public RankStatRequest entityType(@NotNull Statistic statistic, @NotNull EntityType entityType) {
+        RequestSettings completedRequest = requestHandler.entityType(statistic, entityType);
+        return new RankStatRequest(completedRequest);
+    }
+
+    @Override
+    public RankStatResult execute() {
+        return getStatResult(super.requestSettings);
+    }
+
+    @Override
+    RankStatResult execute(StatBatch statBatch) {
+        int stat = Main
+                .getStatCalculator()
+                .getPlayerStat(requestSettings);
+        return getStatResult(requestSettings, statBatch.getRank(requestSettings, stat), stat);
+    }
+
+    private RankStatResult getStatResult(RequestSettings completedRequest) {
+        StatCalculator statCalculator = Main.getStatCalculator();
+        int stat = statCalculator.getPlayerStat(completedRequest);
+        PlayerRank rank = statCalculator.getRank(completedRequest, stat);
+        return getStatResult(completedRequest, rank, stat);
+    }
+
+    private RankStatResult getStatResult(RequestSettings completedRequest, PlayerRank rank, int stat) {
+        FormattedMessage formattedMessage = new FormattedMessage(() -> Main
+                .getStatFormatter()
+                .formatAndSaveRankStat(completedRequest, rank, stat));
+
+        return new RankStatResult(rank.rank(), rank.getPercentile(), stat, formattedMessage);
+    }
+}
@@ -33,6 +33,19 @@ public final class RequestHandler {
         return request;
     }
 
+    public static RequestSettings getBasicRankStatRequest(String playerName) {
+        RequestSettings request = RequestSettings.getBasicAPIRequest();
+        request.setTarget(Target.RANK);
+        request.setPlayerName(playerName);
+        return request;
+    }
+
+    public static RequestSettings getBasicPercentileStatRequest() {
+        RequestSettings request = RequestSettings.getBasicAPIRequest();
+        request.setTarget(Target.PERCENTILE);
+        return request;
+    }
+
     public static RequestSettings getBasicTopStatRequest(int topListSize) {
         RequestSettings request = RequestSettings.getBasicAPIRequest();
         request.setTarget(Target.TOP);
@@ -40,6 +53,12 @@ public final class RequestHandler {
         return request;
     }
 
+    public static RequestSettings getBasicTopStatPageRequest(int offset, int limit) {
+        RequestSettings request = getBasicTopStatRequest(limit);
+        request.setTopListOffset(offset);
+        return request;
+    }
+
     /**
      * @param sender the CommandSender that requested this specific statistic
      */
@@ -92,9 +111,10 @@ public final class RequestHandler {
      * <ul>
      * <li> a <code>statName</code> (example: "mine_block")
      * <li> if applicable, a <code>subStatEntryName</code> (example: diorite)
-     * <li> a <code>target</code> for this lookup: can be "top", "server", "player"
-     *      (or "me" to indicate the current CommandSender)
-     * <li> if "player" was chosen, include a <code>playerName</code>
+     * <li> a <code>target</code> for this lookup: can be "top", "server", "player",
+     *      "rank", "percentiles" (or "me" to indicate the current CommandSender)
+     * <li> if "player" or "rank" was chosen, include a <code>playerName</code>
+     * <li> if "top" was chosen, optionally "page" followed by a page number
      * </ul>
      * @return the generated RequestSettings
      */
@@ -102,8 +122,19 @@ public final class RequestHandler {
         EnumHandler enumHandler = Main.getEnumHandler();
         OfflinePlayerHandler offlinePlayerHandler = Main.getOfflinePlayerHandler();
         CommandSender sender = requestSettings.getCommandSender();
+        boolean pageFlag = false;
 
         for (String arg : args) {
+            //check for a page number right after "page"
+            if (pageFlag) {
+                pageFlag = false;
+                int page = getPageNumber(arg);
+                if (page > 0) {
+                    requestSettings.setTopListOffset((page - 1) * requestSettings.getTopListSize());
+                    continue;
+                }
+            }
+
             //check for statName
             if (enumHandler.isStatistic(arg) && requestSettings.getStatistic() == null) {
                 requestSettings.setStatistic(EnumHandler.getStatEnum(arg));
@@ -121,22 +152,43 @@ public final class RequestHandler {
                 requestSettings.setTarget(Target.TOP);
             } else if (arg.equalsIgnoreCase("server")) {
                 requestSettings.setTarget(Target.SERVER);
+            } else if (arg.equalsIgnoreCase("rank")) {
+                requestSettings.setTarget(Target.RANK);
+            } else if (arg.equalsIgnoreCase("percentiles")) {
+                requestSettings.setTarget(Target.PERCENTILE);
+            } else if (arg.equalsIgnoreCase("page") && requestSettings.getTarget() == Target.TOP) {
+                pageFlag = true;
             } else if (arg.equalsIgnoreCase("me")) {
                 if (sender instanceof Player) {
                     requestSettings.setPlayerName(sender.getName());
-                    requestSettings.setTarget(Target.PLAYER);
+                    if (requestSettings.getTarget() != Target.RANK) {
+                        requestSettings.setTarget(Target.PLAYER);
+                    }
                 } else if (sender instanceof ConsoleCommandSender) {
                     requestSettings.setTarget(Target.SERVER);
                 }
             } else if (offlinePlayerHandler.isRelevantPlayer(arg) && requestSettings.getPlayerName() == null) {
                 requestSettings.setPlayerName(arg);
-                requestSettings.setTarget(Target.PLAYER);
+                if (requestSettings.getTarget() != Target.RANK) {
+                    requestSettings.setTarget(Target.PLAYER);
+                }
             }
         }
         patchRequest(requestSettings);
         return requestSettings;
     }
 
+    /**
+     * @return the page number, or -1 if this arg is not a valid page number
+     */
+    private static int getPageNumber(String arg) {
+        try {
+            return Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Adjust the RequestSettings object if needed: unpack the playerFlag
      * into a subStatEntry, try to retrieve the corresponding Enum Constant
@@ -150,7 +202,7 @@ public final class RequestHandler {
             if (requestSettings.getPlayerFlag()) {  //unpack the playerFlag
                 if (type == Statistic.Type.ENTITY && requestSettings.getSubStatEntryName() == null) {
                     requestSettings.setSubStatEntryName("player");
-                } else {
+                } else if (requestSettings.getTarget() != Target.RANK) {
                     requestSettings.setTarget(Target.PLAYER);
                 }
             }
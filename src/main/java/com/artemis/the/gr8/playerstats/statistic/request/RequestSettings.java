@@ -41,6 +41,8 @@ public final class RequestSettings {
     private String playerName;
     private Target target;
     private int topListSize;
+    private int topListOffset;
+    private int lastPlayedLimit;
 
     private String subStatEntryName;
     private EntityType entity;
@@ -53,6 +55,7 @@ public final class RequestSettings {
      * <br>- CommandSender sender (provided)
      * <br>- Target target = {@link Target#TOP}
      * <br>- int topListSize = 10
+     * <br>- int lastPlayedLimit = -1 (use the config setting)
      * <br>- boolean playerFlag = false
      *
      * @param sender the CommandSender who prompted this RequestGenerator
@@ -60,6 +63,7 @@ public final class RequestSettings {
     private RequestSettings(@NotNull CommandSender sender) {
         this.sender = sender;
         target = Target.TOP;
+        lastPlayedLimit = -1;
         playerFlag = false;
     }
 
@@ -127,6 +131,31 @@ public final class RequestSettings {
         return this.topListSize;
     }
 
+    /**
+     * @param topListOffset the number of places to skip at the start
+     *                      of a top-list (0 to start at the first place)
+     */
+    public void setTopListOffset(int topListOffset) {
+        this.topListOffset = topListOffset;
+    }
+
+    public int getTopListOffset() {
+        return this.topListOffset;
+    }
+
+    /**
+     * @param lastPlayedLimit the maximum number of days since players last
+     *                        joined to include them in this request, 0 to include
+     *                        all players, or -1 to use the config setting
+     */
+    public void setLastPlayedLimit(int lastPlayedLimit) {
+        this.lastPlayedLimit = lastPlayedLimit;
+    }
+
+    public int getLastPlayedLimit() {
+        return this.lastPlayedLimit;
+    }
+
     public void setEntity(EntityType entity) {
         this.entity = entity;
     }
@@ -154,7 +183,9 @@ public final class RequestSettings {
     public boolean isValid() {
         if (statistic == null) {
             return false;
-        } else if (target == Target.PLAYER && playerName == null) {
+        } else if ((target == Target.PLAYER || target == Target.RANK) && playerName == null) {
+            return false;
+        } else if (topListOffset < 0 || lastPlayedLimit < -1) {
             return false;
         } else if (statistic.getType() != Statistic.Type.UNTYPED &&
                 subStatEntryName == null) {
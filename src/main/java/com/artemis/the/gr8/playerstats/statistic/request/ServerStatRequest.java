@@ -1,10 +1,10 @@
 package com.artemis.the.gr8.playerstats.statistic.request;
 
 import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.statistic.StatBatch;
+import com.artemis.the.gr8.playerstats.statistic.result.FormattedMessage;
 import com.artemis.the.gr8.playerstats.statistic.result.ServerStatResult;
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
-import com.artemis.the.gr8.playerstats.msg.components.ComponentUtils;
-import net.kyori.adventure.text.TextComponent;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
 import org.bukkit.entity.EntityType;
@@ -42,19 +42,23 @@ public final class ServerStatRequest extends StatRequest<Long> implements Reques
         return getStatResult(requestSettings);
     }
 
+    @Override
+    ServerStatResult execute(StatBatch statBatch) {
+        return getStatResult(requestSettings, statBatch.getServerStat(requestSettings));
+    }
+
     private ServerStatResult getStatResult(RequestSettings completedRequest) {
         long stat = Main
                 .getStatCalculator()
                 .getServerStat(completedRequest);
+        return getStatResult(completedRequest, stat);
+    }
 
-        TextComponent prettyComponent = Main
+    private ServerStatResult getStatResult(RequestSettings completedRequest, long stat) {
+        FormattedMessage formattedMessage = new FormattedMessage(() -> Main
                 .getStatFormatter()
-                .formatAndSaveServerStat(completedRequest, stat);
-
-        String prettyString = ComponentUtils
-                .getTranslatableComponentSerializer()
-                .serialize(prettyComponent);
+                .formatAndSaveServerStat(completedRequest, stat));
 
-        return new ServerStatResult(stat, prettyComponent, prettyString);
+        return new ServerStatResult(stat, formattedMessage);
     }
 }
\ No newline at end of file
@@ -1,20 +1,30 @@
 package com.artemis.the.gr8.playerstats.statistic.request;
 
+import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.ThreadManager;
 import com.artemis.the.gr8.playerstats.api.PlayerStats;
+import com.artemis.the.gr8.playerstats.statistic.StatBatch;
 import com.artemis.the.gr8.playerstats.statistic.result.StatResult;
 import com.artemis.the.gr8.playerstats.enums.Target;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
 import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Holds all the information PlayerStats needs to perform
  * a lookup, and can be executed to get the results. Calling
- * {@link #execute()} on a Top- or ServerRequest can take some
+ * {@link #execute()} on a Top-, Server-, Rank- or PercentileRequest can take some
  * time (especially if there is a substantial amount of
  * OfflinePlayers on this particular server), so I strongly
- * advice you to call this asynchronously!
+ * advice you to call this asynchronously, or to use
+ * {@link #executeAsync()} instead!
  */
 public abstract class StatRequest<T> {
 
@@ -25,7 +35,7 @@ public abstract class StatRequest<T> {
   }
 
   /**
-   * Executes this StatRequest. For a Top- or ServerRequest, this can
+   * Executes this StatRequest. For a Top-, Server-, Rank- or PercentileRequest, this can
    * take some time!
    *
    * @return a StatResult containing the value of this lookup, both as
@@ -35,6 +45,88 @@ public abstract class StatRequest<T> {
    */
   public abstract StatResult<T> execute();
 
+  /**
+   * Executes this StatRequest on one of PlayerStats' own threads. If the
+   * returned future is cancelled before it is done, the calculation for
+   * this request is stopped as well (unless another request is waiting
+   * for the same calculation).
+   *
+   * @return a CompletableFuture that completes with the StatResult, or
+   * exceptionally if the request could not be executed (with a
+   * RejectedExecutionException if PlayerStats is too busy to accept it)
+   * @see #execute()
+   */
+  public CompletableFuture<StatResult<T>> executeAsync() {
+    return ThreadManager.supplyAsync(this::execute);
+  }
+
+  /**
+   * Executes this StatRequest on one of PlayerStats' own threads, and
+   * stops it if it is not done within the given time. The returned future
+   * then completes exceptionally with a TimeoutException.
+   *
+   * @param timeout how long to wait before giving up
+   * @param unit the TimeUnit of the timeout
+   * @return a CompletableFuture that completes with the StatResult
+   * @see #executeAsync()
+   */
+  public CompletableFuture<StatResult<T>> executeAsync(long timeout, TimeUnit unit) {
+    return executeAsync().orTimeout(timeout, unit);
+  }
+
+  /**
+   * Only includes the players that have joined within the given number of
+   * days in this StatRequest, instead of the number of days in the
+   * "number-of-days-since-last-joined" setting in PlayerStats' config.
+   * Banned players (or players that are not on the whitelist) stay excluded
+   * if the config says so. Finding these players is cheap, but the
+   * result for a different number of days can't be shared with other
+   * requests, so it has to be calculated on its own.
+   *
+   * @param days the maximum number of days since a player last joined,
+   *             or 0 to include all players
+   * @return this StatRequest
+   * @throws IllegalArgumentException if <code>days</code> is negative
+   */
+  public StatRequest<T> lastJoinedWithin(int days) throws IllegalArgumentException {
+    if (days < 0) {
+      throw new IllegalArgumentException("The number of days cannot be negative");
+    }
+    requestSettings.setLastPlayedLimit(days);
+    return this;
+  }
+
+  /**
+   * Executes this StatRequest with the statistics that have already
+   * been calculated in a {@link StatBatch}.
+   */
+  StatResult<T> execute(StatBatch statBatch) {
+    return execute();
+  }
+
+  /**
+   * Executes all given StatRequests together. The statistics for all
+   * Top-, Server-, Rank- and PercentileRequests are calculated in a single pass over all players,
+   * which is a lot faster than executing them one by one.
+   *
+   * @param requests the StatRequests to execute
+   * @return the StatResults, in the same order as the requests
+   */
+  @ApiStatus.Internal
+  public static List<StatResult<?>> executeAll(List<? extends StatRequest<?>> requests) {
+    StatBatch statBatch = Main
+            .getStatCalculator()
+            .calculateBatch(requests.stream()
+                    .map(request -> request.requestSettings)
+                    .toList());
+
+    ArrayList<StatResult<?>> results = new ArrayList<>(requests.size());
+    for (StatRequest<?> request : requests) {
+      results.add(request.execute(statBatch));
+    }
+    return results;
+  }
+
   /**
    * Gets the Statistic that calling {@link #execute()} will calculate
    * the data for.
@@ -84,4 +176,15 @@ public abstract class StatRequest<T> {
   public Target getTargetSetting() {
     return requestSettings.getTarget();
   }
+
+  /**
+   * Gets the maximum number of days since players last joined to include
+   * them when calling {@link #execute()}.
+   *
+   * @return the number of days, 0 if all players are included,
+   * or -1 if the config setting is used
+   */
+  public int getLastJoinedWithinSetting() {
+    return requestSettings.getLastPlayedLimit();
+  }
 }
\ No newline at end of file
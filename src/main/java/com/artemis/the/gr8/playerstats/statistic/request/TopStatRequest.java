@@ -1,10 +1,11 @@
 package com.artemis.the.gr8.playerstats.statistic.request;
 
 import com.artemis.the.gr8.playerstats.Main;
+import com.artemis.the.gr8.playerstats.statistic.StatBatch;
+import com.artemis.the.gr8.playerstats.statistic.result.FormattedMessage;
+import com.artemis.the.gr8.playerstats.statistic.result.TopStatList;
 import com.artemis.the.gr8.playerstats.statistic.result.TopStatResult;
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
-import com.artemis.the.gr8.playerstats.msg.components.ComponentUtils;
-import net.kyori.adventure.text.TextComponent;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
 import org.bukkit.entity.EntityType;
@@ -44,19 +45,23 @@ public final class TopStatRequest extends StatRequest<LinkedHashMap<String, Inte
         return getStatResult(super.requestSettings);
     }
 
+    @Override
+    TopStatResult execute(StatBatch statBatch) {
+        return getStatResult(requestSettings, statBatch.getTopStats(requestSettings));
+    }
+
     private TopStatResult getStatResult(RequestSettings completedRequest) {
-        LinkedHashMap<String, Integer> stat = Main
+        TopStatList stat = Main
                 .getStatCalculator()
                 .getTopStats(completedRequest);
+        return getStatResult(completedRequest, stat);
+    }
 
-        TextComponent prettyComponent = Main
+    private TopStatResult getStatResult(RequestSettings completedRequest, TopStatList stat) {
+        FormattedMessage formattedMessage = new FormattedMessage(() -> Main
                 .getStatFormatter()
-                .formatAndSaveTopStat(completedRequest, stat);
-
-        String prettyString = ComponentUtils
-                .getTranslatableComponentSerializer()
-                .serialize(prettyComponent);
+                .formatAndSaveTopStat(completedRequest, stat));
 
-        return new TopStatResult(stat, prettyComponent, prettyString);
+        return new TopStatResult(stat, formattedMessage);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.artemis.the.gr8.playerstats.statistic.result;
+
+import com.artemis.the.gr8.playerstats.msg.components.ComponentUtils;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.function.Supplier;
+
+/**
+ * The formatted message for a {@link StatResult}. The message is only
+ * put together the first time it is asked for, so getting just the
+ * numbers from a StatResult doesn't cost anything extra. After that,
+ * the same TextComponent and String are returned every time.
+ */
+public final class FormattedMessage {
+
+    private Supplier<TextComponent> formatter;
+    private volatile TextComponent formattedComponent;
+    private volatile String formattedString;
+
+    @ApiStatus.Internal
+    public FormattedMessage(Supplier<TextComponent> formatter) {
+        this.formatter = formatter;
+    }
+
+    public TextComponent getTextComponent() {
+        TextComponent component = formattedComponent;
+        if (component == null) {
+            synchronized (this) {
+                component = formattedComponent;
+                if (component == null) {
+                    component = formatter.get();
+                    formattedComponent = component;
+                    formatter = null;
+                }
+            }
+        }
+        return component;
+    }
+
+    public String getString() {
+        String string = formattedString;
+        if (string == null) {
+            string = ComponentUtils.getTranslatableComponentSerializer()
+                    .serialize(getTextComponent());
+            formattedString = string;
+        }
+        return string;
+    }
+}
@@ -0,0 +1,43 @@
+package com.artemis.the.gr8.playerstats.statistic.result;
+
+import net.kyori.adventure.text.TextComponent;
+
+import java.util.LinkedHashMap;
+
+public record PercentileStatResult(LinkedHashMap<Integer, Integer> value, FormattedMessage formattedMessage) implements StatResult<LinkedHashMap<Integer, Integer>> {
+
+    /**
+     * @return the number for each percentile (0, 10, 25, 50, 75, 90, 99 and 100),
+     * where the 0th percentile is the lowest number and the 100th the highest
+     */
+    @Override
+    public LinkedHashMap<Integer, Integer> getNumericalValue() {
+        return value;
+    }
+
+    /**
+     * @return the formatted message as a TextComponent
+     * (the same as {@link #getFormattedTextComponent()})
+     */
+    public TextComponent formattedComponent() {
+        return formattedMessage.getTextComponent();
+    }
+
+    /**
+     * @return the formatted message as a String
+     * (the same as {@link #getFormattedString()})
+     */
+    public String formattedString() {
+        return formattedMessage.getString();
+    }
+
+    @Override
+    public TextComponent getFormattedTextComponent() {
+        return formattedMessage.getTextComponent();
+    }
+
+    @Override
+    public String getFormattedString() {
+        return formattedMessage.getString();
+    }
+}
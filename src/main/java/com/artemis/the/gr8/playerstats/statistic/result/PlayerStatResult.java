@@ -2,20 +2,36 @@ package com.artemis.the.gr8.playerstats.statistic.result;
 
 import net.kyori.adventure.text.TextComponent;
 
-public record PlayerStatResult(int value, TextComponent formattedComponent, String formattedString) implements StatResult<Integer> {
+public record PlayerStatResult(int value, FormattedMessage formattedMessage) implements StatResult<Integer> {
 
     @Override
     public Integer getNumericalValue() {
         return value;
     }
 
+    /**
+     * @return the formatted message as a TextComponent
+     * (the same as {@link #getFormattedTextComponent()})
+     */
+    public TextComponent formattedComponent() {
+        return formattedMessage.getTextComponent();
+    }
+
+    /**
+     * @return the formatted message as a String
+     * (the same as {@link #getFormattedString()})
+     */
+    public String formattedString() {
+        return formattedMessage.getString();
+    }
+
     @Override
     public TextComponent getFormattedTextComponent() {
-        return formattedComponent;
+        return formattedMessage.getTextComponent();
     }
 
     @Override
     public String getFormattedString() {
-        return formattedString;
+        return formattedMessage.getString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.artemis.the.gr8.playerstats.statistic.result;
+
+import net.kyori.adventure.text.TextComponent;
+
+/**
+ * @param rank the place the player is in for this statistic (starting at 1)
+ * @param percentile the percentage of players that have a lower number than this player
+ * @param value the player's number for this statistic
+ */
+public record RankStatResult(int rank, double percentile, int value, FormattedMessage formattedMessage) implements StatResult<Integer> {
+
+    /**
+     * @return the place the player is in for this statistic (starting at 1)
+     */
+    @Override
+    public Integer getNumericalValue() {
+        return rank;
+    }
+
+    /**
+     * @return the formatted message as a TextComponent
+     * (the same as {@link #getFormattedTextComponent()})
+     */
+    public TextComponent formattedComponent() {
+        return formattedMessage.getTextComponent();
+    }
+
+    /**
+     * @return the formatted message as a String
+     * (the same as {@link #getFormattedString()})
+     */
+    public String formattedString() {
+        return formattedMessage.getString();
+    }
+
+    @Override
+    public TextComponent getFormattedTextComponent() {
+        return formattedMessage.getTextComponent();
+    }
+
+    @Override
+    public String getFormattedString() {
+        return formattedMessage.getString();
+    }
+}
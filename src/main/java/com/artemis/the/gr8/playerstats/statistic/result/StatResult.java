@@ -8,15 +8,19 @@ import net.kyori.adventure.text.TextComponent;
  * Holds the result of a completed stat-lookup. The <code>Type</code> parameter
  * <code>T</code> of this StatResult represents the data type of the stored number:
  * <ul>
- * <li> <code>Integer</code> for playerStat
+ * <li> <code>Integer</code> for playerStat and rankStat (the place the player is in)
  * <li> <code>Long</code> for serverStat
- * <li> <code>LinkedHashMap(String, Integer)</code> for topStat
+ * <li> <code>LinkedHashMap(String, Integer)</code> for topStat (or a more compact
+ *      {@link TopStatList}, with {@link TopStatResult#getTopStatList()})
+ * <li> <code>LinkedHashMap(Integer, Integer)</code> for percentileStat (the number for each percentile)
  * </ul>
  * You can get these raw numbers with {@link #getNumericalValue()}. Additionally,
  * you can get a formatted message that contains the following information:
  * <ul>
  * <li> for playerStat:
  * <br> [player-name]: [formatted-number] [stat-name] [sub-stat-name]
+ * <li> for rankStat:
+ * <br> [player-name]: [#rank] [stat-name] [sub-stat-name] ([formatted-number])
  * <li> for serverStat:
  * <br> [Total on] [server-name]: [formatted-number] [stat-name] [sub-stat-name]
  * <li> for topStat:
@@ -24,6 +28,11 @@ import net.kyori.adventure.text.TextComponent;
  * <br> [1.] [player-name] [.....] [formatted-number]
  * <br> [2.] [player-name] [.....] [formatted-number]
  * <br> [3.] etc...
+ * <li> for percentileStat:
+ * <br> [PlayerStats] [Percentiles] [stat-name] [sub-stat-name]
+ * <br> [0%] [formatted-number]
+ * <br> [10%] [formatted-number]
+ * <br> [25%] etc...
  * </ul>
 
  * By default, the resulting message is a {@link TextComponent}, which can be
@@ -40,6 +49,10 @@ import net.kyori.adventure.text.TextComponent;
  * or <code>#toString()</code> methods on the Components - those won't get the actual
  * message. And finally, if you want the results to be formatted differently,
  * you can get an instance of the {@link ApiFormatter}.
+ *
+ * <p>The formatted message is only put together the first time one of these
+ * methods is called, so if you only need the numbers, you don't pay for
+ * formatting at all.
  */
 public interface StatResult<T> {
 
@@ -47,8 +60,9 @@ public interface StatResult<T> {
      * Gets the raw number for the completed stat-lookup this {@link StatResult}
      * stores.
      *
-     * @return {@code Integer} for playerStat, {@code Long} for serverStat,
-     * and {@code LinkedHashMap<String, Integer>} for topStat
+     * @return {@code Integer} for playerStat and rankStat, {@code Long} for serverStat,
+     * {@code LinkedHashMap<String, Integer>} for topStat,
+     * and {@code LinkedHashMap<Integer, Integer>} for percentileStat
      */
     T getNumericalValue();
 
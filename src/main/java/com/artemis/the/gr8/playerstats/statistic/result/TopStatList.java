@@ -0,0 +1,97 @@
+package com.artemis.the.gr8.playerstats.statistic.result;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The players and numbers in a top-statistic, ordered from highest
+ * to lowest number. The names and numbers are stored in two arrays
+ * of the same length, so even a top-list with every player on the server
+ * in it doesn't need a map-entry or boxed Integer for every player.
+ * A TopStatList can't be changed, so the same one can be shared
+ * between any number of results.
+ */
+public final class TopStatList {
+
+    private final String[] playerNames;
+    private final int[] values;
+
+    /**
+     * @param playerNames the names of the players in this list, from highest to lowest number
+     * @param values the number for each player in playerNames (the arrays are not copied,
+     *               so they should not be changed afterwards)
+     */
+    @ApiStatus.Internal
+    public TopStatList(String[] playerNames, int[] values) {
+        if (playerNames.length != values.length) {
+            throw new IllegalArgumentException("playerNames and values must have the same length");
+        }
+        this.playerNames = playerNames;
+        this.values = values;
+    }
+
+    /**
+     * @return the number of players in this list
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @param position the position in this list (starting at 0 for the highest number)
+     * @return the name of the player at this position
+     * @throws IndexOutOfBoundsException if the position is not in this list
+     */
+    public String getPlayerName(int position) {
+        return playerNames[position];
+    }
+
+    /**
+     * @param position the position in this list (starting at 0 for the highest number)
+     * @return the number for the player at this position
+     * @throws IndexOutOfBoundsException if the position is not in this list
+     */
+    public int getValue(int position) {
+        return values[position];
+    }
+
+    /**
+     * Gets the part of this list between the two positions.
+     *
+     * @param fromPosition the first position to include (starting at 0 for the highest number)
+     * @param toPosition the first position that is no longer included
+     * @return a new TopStatList with the names and numbers between these positions
+     * @throws IndexOutOfBoundsException if the positions are not in this list
+     */
+    public TopStatList subList(int fromPosition, int toPosition) {
+        return new TopStatList(Arrays.copyOfRange(playerNames, fromPosition, toPosition),
+                Arrays.copyOfRange(values, fromPosition, toPosition));
+    }
+
+    /**
+     * Passes every player's name and number to the consumer,
+     * from highest to lowest number.
+     *
+     * @param consumer the consumer that receives the names and numbers
+     */
+    public void forEach(ObjIntConsumer<String> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            consumer.accept(playerNames[i], values[i]);
+        }
+    }
+
+    /**
+     * Puts this list in a LinkedHashMap with the player names as keys,
+     * in the same order. A new map is made every time this is called.
+     *
+     * @return a LinkedHashMap with the names and numbers in this list
+     */
+    public LinkedHashMap<String, Integer> toMap() {
+        LinkedHashMap<String, Integer> topStats = new LinkedHashMap<>(values.length * 2);
+        forEach(topStats::put);
+        return topStats;
+    }
+}
@@ -1,23 +1,89 @@
 package com.artemis.the.gr8.playerstats.statistic.result;
 
 import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.ApiStatus;
 
 import java.util.LinkedHashMap;
 
-public record TopStatResult(LinkedHashMap<String, Integer> value, TextComponent formattedComponent, String formattedString) implements StatResult<LinkedHashMap<String,Integer>> {
+/**
+ * The result of a top-statistic. The players and numbers are stored in a
+ * compact {@link TopStatList}, and are only put in a LinkedHashMap the first
+ * time {@link #value()} or {@link #getNumericalValue()} is called. After that,
+ * the same map is returned every time.
+ */
+public final class TopStatResult implements StatResult<LinkedHashMap<String,Integer>> {
+
+    private final TopStatList topStatList;
+    private final FormattedMessage formattedMessage;
+    private volatile LinkedHashMap<String, Integer> value;
+
+    /**
+     * @param topStatList the players and numbers in this top-statistic
+     * @param formattedMessage the formatted message for this top-statistic
+     */
+    @ApiStatus.Internal
+    public TopStatResult(TopStatList topStatList, FormattedMessage formattedMessage) {
+        this.topStatList = topStatList;
+        this.formattedMessage = formattedMessage;
+    }
+
+    /**
+     * @return a LinkedHashMap with the player names and their numbers,
+     * from highest to lowest number
+     */
+    public LinkedHashMap<String, Integer> value() {
+        LinkedHashMap<String, Integer> topStats = value;
+        if (topStats == null) {
+            synchronized (this) {
+                topStats = value;
+                if (topStats == null) {
+                    topStats = topStatList.toMap();
+                    value = topStats;
+                }
+            }
+        }
+        return topStats;
+    }
+
+    /**
+     * Gets the players and numbers in this top-statistic without putting
+     * them in a map. For large top-lists, this is a lot cheaper than
+     * {@link #value()}, because it doesn't need an object for every player.
+     *
+     * @return the players and numbers in this top-statistic
+     */
+    public TopStatList getTopStatList() {
+        return topStatList;
+    }
 
     @Override
     public LinkedHashMap<String, Integer> getNumericalValue() {
-        return value;
+        return value();
+    }
+
+    /**
+     * @return the formatted message as a TextComponent
+     * (the same as {@link #getFormattedTextComponent()})
+     */
+    public TextComponent formattedComponent() {
+        return formattedMessage.getTextComponent();
+    }
+
+    /**
+     * @return the formatted message as a String
+     * (the same as {@link #getFormattedString()})
+     */
+    public String formattedString() {
+        return formattedMessage.getString();
     }
 
     @Override
     public TextComponent getFormattedTextComponent() {
-        return formattedComponent;
+        return formattedMessage.getTextComponent();
     }
 
     @Override
     public String getFormattedString() {
-        return formattedString;
+        return formattedMessage.getString();
     }
-}
\ No newline at end of file
+}
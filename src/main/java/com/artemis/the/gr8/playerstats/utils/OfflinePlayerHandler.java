@@ -5,32 +5,142 @@ import org.bukkit.OfflinePlayer;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * A utility class that deals with OfflinePlayers. It stores a list
  * of all OfflinePlayer-names that need to be included in statistic
  * calculations, and can retrieve the corresponding OfflinePlayer
- * object for a given player-name.
+ * object for a given player-name. The list is kept in an immutable
+ * {@link PlayerRegistry}, which is replaced as a whole through a single
+ * volatile reference, so every reader sees one consistent version.
  */
 public final class OfflinePlayerHandler {
 
-    private static ConcurrentHashMap<String, UUID> offlinePlayerUUIDs;
-    private static ArrayList<String> playerNames;
+    private static volatile PlayerRegistry playerRegistry;
 
     public OfflinePlayerHandler() {
-        offlinePlayerUUIDs = new ConcurrentHashMap<>();
-        playerNames = new ArrayList<>();
+        playerRegistry = new PlayerRegistry(0, Map.of(), uuid -> 0, uuid -> false, 0);
     }
 
     /**
      * Get a new HashMap that stores the players to include in stat calculations.
-     * This HashMap is stored as a private variable in OfflinePlayerHandler.
+     * This HashMap is stored as a private variable in OfflinePlayerHandler,
+     * and replaces the old one in one go: calculations that are still
+     * running keep using the old list, and the epoch goes up by one.
      *
      * @param playerList ConcurrentHashMap with keys: playerNames and values: UUIDs
+     * @param lastPlayedTimes ConcurrentHashMap with keys: UUIDs and values: the time this player last played
+     * @param isExcluded tells which of these players should be left out of calculations
+     * @param lastPlayedLimit the maximum number of days since players last joined
+     *                        to include them, or 0 to include all players
      */
-    public static void updateOfflinePlayerList(ConcurrentHashMap<String, UUID> playerList) {
-        offlinePlayerUUIDs = playerList;
-        playerNames = Collections.list(offlinePlayerUUIDs.keys());
+    public static synchronized void updateOfflinePlayerList(ConcurrentHashMap<String, UUID> playerList,
+                                                            ConcurrentHashMap<UUID, Long> lastPlayedTimes,
+                                                            Predicate<UUID> isExcluded, int lastPlayedLimit) {
+        playerRegistry = new PlayerRegistry(playerRegistry.getEpoch() + 1, playerList,
+                uuid -> lastPlayedTimes.getOrDefault(uuid, 0L), isExcluded, lastPlayedLimit);
+    }
+
+    /**
+     * Leaves out the players that haven't joined within the
+     * "number-of-days-since-last-joined" setting anymore, without
+     * loading the whole list again. This only takes a binary search,
+     * and is meant to be called regularly.
+     *
+     * @return true if any players were left out (or included again)
+     */
+    public static synchronized boolean updateActivePlayers() {
+        PlayerRegistry players = playerRegistry;
+        playerRegistry = players.withActivePlayers(System.currentTimeMillis());
+        return playerRegistry != players;
+    }
+
+    /**
+     * Remembers that a player who has joined before is playing right now,
+     * so they are included in calculations again if they had been away
+     * for longer than the "number-of-days-since-last-joined" setting.
+     *
+     * @param uuid the UUID of the player
+     * @return the current PlayerRegistry
+     */
+    public static synchronized PlayerRegistry markActive(UUID uuid) {
+        PlayerRegistry players = playerRegistry;
+        int ordinal = players.getOrdinal(uuid);
+        if (ordinal != -1) {
+            playerRegistry = players.withActivity(ordinal, System.currentTimeMillis());
+        }
+        return playerRegistry;
+    }
+
+    /**
+     * Changes whether a single player is left out of calculations,
+     * for example after they have been banned or pardoned, without loading
+     * the whole list again.
+     *
+     * @param uuid the UUID of the player
+     * @param exclude whether this player should be left out of calculations
+     * @return true if this changed whether the player is excluded
+     */
+    public static synchronized boolean updateExclusion(UUID uuid, boolean exclude) {
+        PlayerRegistry players = playerRegistry;
+        int ordinal = players.getOrdinal(uuid);
+        if (ordinal == -1) {
+            return false;
+        }
+        playerRegistry = players.withExclusion(ordinal, exclude);
+        return playerRegistry != players;
+    }
+
+    /**
+     * Checks for all players whether they should be left out of calculations,
+     * without loading the whole list again.
+     *
+     * @param isExcluded tells which players should be left out of calculations
+     * @return true if this changed which players are excluded
+     */
+    public static synchronized boolean updateExclusions(Predicate<UUID> isExcluded) {
+        PlayerRegistry players = playerRegistry;
+        playerRegistry = players.withExclusions(isExcluded);
+        return playerRegistry != players;
+    }
+
+    /**
+     * Adds a single player to the players to include in stat calculations,
+     * without loading the whole list again. This is meant for players
+     * that join for the very first time, and keeps the epoch the same,
+     * so results that were calculated before they joined are not thrown away.
+     *
+     * @param playerName the name of the player
+     * @param uuid the UUID of the player
+     * @return the new PlayerRegistry, which includes this player
+     */
+    public static synchronized PlayerRegistry addOfflinePlayer(String playerName, UUID uuid) {
+        playerRegistry = playerRegistry.withPlayer(playerName, uuid, System.currentTimeMillis());
+        return playerRegistry;
+    }
+
+    /**
+     * Gets the current list of players to include in statistic calculations.
+     * A calculation should get this once, and use the same registry
+     * from start to finish.
+     *
+     * @return the current PlayerRegistry
+     */
+    public PlayerRegistry getPlayerRegistry() {
+        return playerRegistry;
+    }
+
+    /**
+     * Gets the version of the list of players to include in statistic
+     * calculations, which goes up every time a new list is loaded, or
+     * players are left out or included again. Results that were calculated
+     * for an older epoch are outdated.
+     *
+     * @return the current epoch
+     */
+    public int getEpoch() {
+        return playerRegistry.getEpoch();
     }
 
     /**
@@ -41,7 +151,7 @@ public final class OfflinePlayerHandler {
      * @return true if this Player should be included in calculations
      */
     public boolean isRelevantPlayer(String playerName) {
-        return offlinePlayerUUIDs.containsKey(playerName);
+        return playerRegistry.contains(playerName);
     }
 
     /**
@@ -51,17 +161,28 @@ public final class OfflinePlayerHandler {
      * @return the number of included OfflinePlayers
      */
     public int getOfflinePlayerCount() {
-        return offlinePlayerUUIDs.size();
+        return playerRegistry.getIncludedCount();
     }
 
     /**
-     * Gets an ArrayList of names from all OfflinePlayers that should
+     * Gets a List of names from all OfflinePlayers that should
      * be included in statistic calculations.
      *
-     * @return the ArrayList
+     * @return an unmodifiable List
+     */
+    public List<String> getOfflinePlayerNames() {
+        return playerRegistry.getPlayerNameList();
+    }
+
+    /**
+     * Gets the UUID of a player that should be included in
+     * statistic calculations.
+     *
+     * @param playerName name of the target player (case-sensitive)
+     * @return the UUID, or null if this player is not on the list
      */
-    public ArrayList<String> getOfflinePlayerNames() {
-        return playerNames;
+    public UUID getUUID(String playerName) {
+        return playerRegistry.getUUID(playerName);
     }
 
     /**
@@ -74,8 +195,9 @@ public final class OfflinePlayerHandler {
      * of players that should be included in statistic calculations
      */
     public OfflinePlayer getOfflinePlayer(String playerName) throws IllegalArgumentException {
-        if (offlinePlayerUUIDs.get(playerName) != null) {
-            return Bukkit.getOfflinePlayer(offlinePlayerUUIDs.get(playerName));
+        UUID uuid = playerRegistry.getUUID(playerName);
+        if (uuid != null) {
+            return Bukkit.getOfflinePlayer(uuid);
         }
         else {
             MyLogger.logWarning("Cannot calculate statistics for player-name: " + playerName +
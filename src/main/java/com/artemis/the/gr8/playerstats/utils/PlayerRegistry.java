@@ -0,0 +1,588 @@
+package com.artemis.the.gr8.playerstats.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * An immutable list of all players that are included in statistic
+ * calculations. Every player has an ordinal, which is their position
+ * in the arrays of names and UUIDs, and can be looked up by name or UUID.
+ * A new PlayerRegistry is made whenever the list of players changes, so
+ * a calculation that holds on to one registry always sees the same
+ * players, with names and UUIDs that belong together. The epoch goes up
+ * whenever players are left out or included again, but not when a player
+ * who joins for the first time is added: that player has no statistics
+ * yet, so results for the registry without them are still valid.
+ * <br>
+ * <br>When a single player is added, the new registry shares its arrays
+ * with the old one, and the new player is written into the first unused
+ * place. The old registry never looks past its own size, so it doesn't
+ * change, and adding a player takes (amortized) constant time. The maps
+ * from names and UUIDs to ordinals are shared as well, so a registry
+ * checks that an ordinal it finds there is one of its own.
+ * <br>
+ * <br>Players that should be left out of calculations (such as banned players,
+ * or players that are not on the whitelist) are still in the registry, but
+ * are marked in a bitmap of excluded ordinals. When a player is banned or
+ * pardoned, only this bitmap is copied and changed, so the list of players
+ * doesn't have to be loaded again. Excluded players are left out of
+ * the names that are handed out, and can't be found by name.
+ * <br>
+ * <br>The players that are loaded together get their ordinals in order of
+ * the time they last played, starting with the most recent one, and players
+ * that are added later come after them, in the order they joined. This way,
+ * the players that have joined within the "number-of-days-since-last-joined"
+ * setting are the first part of the loaded players plus the last part of
+ * the added ones, which can both be found with a binary search. Players
+ * that join again are remembered separately, because they would otherwise
+ * have to move to a different place.
+ */
+public final class PlayerRegistry {
+
+    private static final int[] noOrdinals = new int[0];
+    //the active players are only determined again once an hour
+    private static final long activityPrecision = 60 * 60 * 1000;
+
+    private final int epoch;
+    private final Base base;
+    private final int size;
+    private final String[] playerNames;
+    private final UUID[] uuids;
+    private final long[] lastPlayed;
+    private final long[] excluded;
+    private final int excludedCount;
+    private final ActivePlayers active;
+    private final int includedCount;
+    private volatile List<String> includedNames;
+
+    /**
+     * @param epoch the version of this registry
+     * @param players the names and UUIDs of the players to include
+     * @param lastPlayedTimes gives the time each of these players last played
+     * @param isExcluded tells which of these players should be left out of calculations
+     * @param lastPlayedLimit the maximum number of days since players last joined
+     *                        to include them, or 0 to include all players
+     */
+    PlayerRegistry(int epoch, Map<String, UUID> players, ToLongFunction<UUID> lastPlayedTimes,
+                   Predicate<UUID> isExcluded, int lastPlayedLimit) {
+        this.epoch = epoch;
+        size = players.size();
+        playerNames = new String[size];
+        uuids = new UUID[size];
+        lastPlayed = new long[size];
+        ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>(size * 2);
+        ConcurrentHashMap<UUID, Integer> uuidOrdinals = new ConcurrentHashMap<>(size * 2);
+
+        ArrayList<Map.Entry<String, UUID>> sortedPlayers = new ArrayList<>(players.entrySet());
+        sortedPlayers.sort(Comparator.comparingLong(
+                (Map.Entry<String, UUID> player) -> lastPlayedTimes.applyAsLong(player.getValue())).reversed());
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Map.Entry<String, UUID> player = sortedPlayers.get(ordinal);
+            playerNames[ordinal] = player.getKey();
+            uuids[ordinal] = player.getValue();
+            lastPlayed[ordinal] = lastPlayedTimes.applyAsLong(player.getValue());
+            ordinals.put(player.getKey(), ordinal);
+            uuidOrdinals.put(player.getValue(), ordinal);
+        }
+        base = new Base(size, ordinals, uuidOrdinals, new ConcurrentHashMap<>());
+        excluded = getExclusionBitmap(uuids, size, isExcluded);
+        excludedCount = countExcluded(excluded, 0, size);
+        active = getActivePlayers(lastPlayedLimit, System.currentTimeMillis());
+        includedCount = countIncluded(active, excluded, excludedCount);
+    }
+
+    private PlayerRegistry(int epoch, Base base, int size, String[] playerNames, UUID[] uuids, long[] lastPlayed,
+                           long[] excluded, int excludedCount, ActivePlayers active, int includedCount) {
+        this.epoch = epoch;
+        this.base = base;
+        this.size = size;
+        this.playerNames = playerNames;
+        this.uuids = uuids;
+        this.lastPlayed = lastPlayed;
+        this.excluded = excluded;
+        this.excludedCount = excludedCount;
+        this.active = active;
+        this.includedCount = includedCount;
+    }
+
+    /**
+     * Makes a new registry with one more player, that gets the next ordinal.
+     * This should only be called on the newest registry (so by the
+     * {@link OfflinePlayerHandler}), because the new registry uses
+     * the unused part of this registry's arrays. The new registry keeps
+     * the same epoch. If another player in this registry has the same
+     * name (because they have changed their name since), the name belongs
+     * to the new player from now on, and the other player is given the
+     * name with "#" and their ordinal after it (which no real name can
+     * have) until the players are loaded again. The new registry then gets
+     * its own copy of the names, so older registries keep the names they had.
+     *
+     * @param playerName the name of the new player
+     * @param uuid the UUID of the new player
+     * @param joinTime the time the new player joined
+     * @return the new registry, or this one if this UUID is already in it
+     */
+    PlayerRegistry withPlayer(String playerName, UUID uuid, long joinTime) {
+        if (getOrdinal(uuid) != -1) {
+            return this;
+        }
+        String[] names = playerNames;
+        UUID[] ids = uuids;
+        long[] times = lastPlayed;
+        int previousOwner = getOrdinal(playerName);
+        if (size == names.length || previousOwner != -1) {
+            int newLength = (size == names.length) ? Math.max(16, size * 2) : names.length;
+            names = Arrays.copyOf(names, newLength);
+            ids = Arrays.copyOf(ids, newLength);
+            times = Arrays.copyOf(times, newLength);
+        }
+        if (previousOwner != -1) {
+            String previousName = playerName + "#" + previousOwner;
+            names[previousOwner] = previousName;
+            base.ordinals.put(previousName, previousOwner);
+        }
+        names[size] = playerName;
+        ids[size] = uuid;
+        times[size] = joinTime;
+        base.ordinals.put(playerName, size);
+        base.uuidOrdinals.put(uuid, size);
+        //the bitmap is shared as well: ordinals past its end are not excluded,
+        //and the new player is active, because every ordinal after active.from is
+        return new PlayerRegistry(epoch, base, size + 1, names, ids, times,
+                excluded, excludedCount, active, includedCount + 1);
+    }
+
+    /**
+     * Remembers that this player has played just now, so they don't stop
+     * being active while they are online, and makes a new registry
+     * that includes them if they were no longer active. If the time this
+     * player was last seen is already known to within an hour (for example
+     * when a player who just joined leaves again), nothing is written,
+     * because the active players are only determined once an hour anyway.
+     *
+     * @param ordinal the ordinal of the player
+     * @param time the time the player was last seen
+     * @return the new registry, or this one if the player was already active
+     */
+    PlayerRegistry withActivity(int ordinal, long time) {
+        if (time - getLastSeen(ordinal) >= activityPrecision) {
+            base.rejoined.merge(ordinal, time, Math::max);
+        }
+        if (active.contains(ordinal)) {
+            return this;
+        }
+        int position = -(Arrays.binarySearch(active.extras, ordinal) + 1);
+        int[] extras = new int[active.extras.length + 1];
+        System.arraycopy(active.extras, 0, extras, 0, position);
+        extras[position] = ordinal;
+        System.arraycopy(active.extras, position, extras, position + 1, active.extras.length - position);
+        ActivePlayers newActive = new ActivePlayers(active.lastPlayedLimit, active.count, active.from, extras);
+        return new PlayerRegistry(epoch + 1, base, size, playerNames, uuids, lastPlayed,
+                excluded, excludedCount, newActive, includedCount + (isExcluded(ordinal) ? 0 : 1));
+    }
+
+    /**
+     * Determines again which players have joined within the last-played-limit
+     * of this registry, so players that haven't played for too long are no
+     * longer included. The times of players who joined again before the
+     * last-played-limit are forgotten, so they are only remembered for as
+     * long as they matter.
+     *
+     * @param now the current time
+     * @return the new registry, or this one if the same players are still active
+     */
+    PlayerRegistry withActivePlayers(long now) {
+        if (active.lastPlayedLimit > 0) {
+            long cutoff = UnixTimeHandler.getLastPlayedCutoff(active.lastPlayedLimit, now);
+            base.rejoined.values().removeIf(time -> time < cutoff);
+        }
+        ActivePlayers newActive = getActivePlayers(active.lastPlayedLimit, now);
+        if (newActive.isSameAs(active)) {
+            return this;
+        }
+        return new PlayerRegistry(epoch + 1, base, size, playerNames, uuids, lastPlayed,
+                excluded, excludedCount, newActive, countIncluded(newActive, excluded, excludedCount));
+    }
+
+    /**
+     * Makes a new registry in which this player is (or is no longer) excluded.
+     *
+     * @param ordinal the ordinal of the player
+     * @param exclude whether the player should be left out of calculations
+     * @return the new registry, or this one if nothing changed
+     */
+    PlayerRegistry withExclusion(int ordinal, boolean exclude) {
+        if (isExcluded(ordinal) == exclude) {
+            return this;
+        }
+        long[] newExcluded = Arrays.copyOf(excluded, Math.max(excluded.length, (size + 63) >>> 6));
+        if (exclude) {
+            newExcluded[ordinal >>> 6] |= (1L << ordinal);
+        } else {
+            newExcluded[ordinal >>> 6] &= ~(1L << ordinal);
+        }
+        int change = active.contains(ordinal) ? (exclude ? -1 : 1) : 0;
+        return new PlayerRegistry(epoch + 1, base, size, playerNames, uuids, lastPlayed,
+                newExcluded, excludedCount + (exclude ? 1 : -1), active, includedCount + change);
+    }
+
+    /**
+     * Makes a new registry with the same players, in which
+     * all excluded players are determined again.
+     *
+     * @param isExcluded tells which players should be left out of calculations
+     * @return the new registry, or this one if the same players are excluded
+     */
+    PlayerRegistry withExclusions(Predicate<UUID> isExcluded) {
+        long[] newExcluded = getExclusionBitmap(uuids, size, isExcluded);
+        //ordinals past the end of the current bitmap are not excluded
+        if (Arrays.equals(newExcluded, Arrays.copyOf(excluded, newExcluded.length))) {
+            return this;
+        }
+        int newExcludedCount = countExcluded(newExcluded, 0, size);
+        return new PlayerRegistry(epoch + 1, base, size, playerNames, uuids, lastPlayed,
+                newExcluded, newExcludedCount, active, countIncluded(active, newExcluded, newExcludedCount));
+    }
+
+    /**
+     * Gets a registry with the same players and epoch as this one, in which
+     * only the players that joined within the given number of days are
+     * included, instead of the number of days this registry was loaded with.
+     * Finding these players takes a binary search, so this is
+     * cheap enough to do for a single request. Players who joined again
+     * are only remembered for the number of days this registry was
+     * loaded with, so a longer limit can miss some of them.
+     *
+     * @param lastPlayedLimit the maximum number of days since players last joined
+     *                        to include them, or 0 to include all players
+     * @return a registry for this last-played-limit
+     */
+    public PlayerRegistry forLastPlayedLimit(int lastPlayedLimit) {
+        if (lastPlayedLimit == active.lastPlayedLimit) {
+            return this;
+        }
+        ActivePlayers newActive = getActivePlayers(lastPlayedLimit, System.currentTimeMillis());
+        return new PlayerRegistry(epoch, base, size, playerNames, uuids, lastPlayed,
+                excluded, excludedCount, newActive, countIncluded(newActive, excluded, excludedCount));
+    }
+
+    /**
+     * @return the version of this registry, which goes up by one every time
+     * players are left out or included again (but not when a player who
+     * joins for the first time is added)
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Checks whether this registry was made from the other one by adding players
+     * (or by leaving players out or including them again), so every player
+     * in the other registry has the same ordinal in this one.
+     */
+    public boolean isExtensionOf(PlayerRegistry other) {
+        return base == other.base && epoch >= other.epoch && size >= other.size;
+    }
+
+    /**
+     * @return the number of players in this registry (including excluded
+     * and inactive ones), which is also the highest ordinal plus one
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of players that are included in calculations
+     */
+    public int getIncludedCount() {
+        return includedCount;
+    }
+
+    /**
+     * @return true if every player in this registry is included in calculations
+     */
+    public boolean includesAll() {
+        return includedCount == size;
+    }
+
+    /**
+     * @return the maximum number of days since players last joined to
+     * include them in this registry, or 0 if all players are included
+     */
+    public int getLastPlayedLimit() {
+        return active.lastPlayedLimit;
+    }
+
+    /**
+     * @return true if the player with this ordinal should be included in calculations,
+     * because they have joined recently enough and are not excluded
+     */
+    public boolean isIncluded(int ordinal) {
+        return active.contains(ordinal) && !isExcluded(ordinal);
+    }
+
+    /**
+     * @return true if the player with this ordinal is banned or not on the
+     * whitelist (depending on the config), whether they are active or not
+     */
+    public boolean isExcluded(int ordinal) {
+        int index = ordinal >>> 6;
+        return index < excluded.length && (excluded[index] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * @param playerName the name of a player (case-sensitive)
+     * @return the ordinal of this player (even if they are not included),
+     * or -1 if they are not in this registry
+     */
+    public int getOrdinal(String playerName) {
+        Integer ordinal = base.ordinals.get(playerName);
+        if (ordinal == null) {
+            return -1;
+        } else if (ordinal < size && playerName.equals(playerNames[ordinal])) {
+            return ordinal;
+        }
+        //the name has been given to a player that was added after this registry
+        //was made (or was given to another player in it in a newer registry)
+        for (int i = size - 1; i >= 0; i--) {
+            if (playerName.equals(playerNames[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param uuid the UUID of a player
+     * @return the ordinal of this player (even if they are not included),
+     * or -1 if they are not in this registry
+     */
+    public int getOrdinal(UUID uuid) {
+        Integer ordinal = base.uuidOrdinals.get(uuid);
+        return (ordinal != null && ordinal < size) ? ordinal : -1;
+    }
+
+    /**
+     * Finds the ordinal of a player by name, ignoring capital letters if
+     * there is no exact match. This is meant for names typed in by someone,
+     * and goes over all players if the name doesn't match exactly.
+     *
+     * @param playerName the name of a player (not case-sensitive)
+     * @return the ordinal of this player (even if they are not included),
+     * or -1 if they are not in this registry
+     */
+    public int findOrdinal(String playerName) {
+        int ordinal = getOrdinal(playerName);
+        if (ordinal == -1) {
+            for (int i = 0; i < size; i++) {
+                if (playerNames[i].equalsIgnoreCase(playerName)) {
+                    return i;
+                }
+            }
+        }
+        return ordinal;
+    }
+
+    /**
+     * @param playerName the name of a player (case-sensitive)
+     * @return true if this player is in this registry, and included in calculations
+     */
+    public boolean contains(String playerName) {
+        int ordinal = getOrdinal(playerName);
+        return ordinal != -1 && isIncluded(ordinal);
+    }
+
+    public String getPlayerName(int ordinal) {
+        return playerNames[ordinal];
+    }
+
+    public UUID getUUID(int ordinal) {
+        return uuids[ordinal];
+    }
+
+    /**
+     * @param playerName the name of a player (case-sensitive)
+     * @return the UUID of this player, or null if they are not
+     * in this registry or not included in calculations
+     */
+    public @Nullable UUID getUUID(String playerName) {
+        int ordinal = getOrdinal(playerName);
+        return (ordinal != -1 && isIncluded(ordinal)) ? uuids[ordinal] : null;
+    }
+
+    /**
+     * Gets the names of all players (including excluded and inactive ones),
+     * ordered by their ordinal. To look up a few names, use
+     * {@link #getPlayerName(int)} instead, which doesn't copy anything.
+     *
+     * @return a new array with {@link #size()} names
+     */
+    public String[] getPlayerNames() {
+        return Arrays.copyOf(playerNames, size);
+    }
+
+    /**
+     * @return a new List with the UUIDs of all players in this registry
+     * (including excluded and inactive ones), ordered by their ordinal
+     */
+    public List<UUID> getUUIDList() {
+        return new ArrayList<>(Arrays.asList(uuids).subList(0, size));
+    }
+
+    /**
+     * @return an unmodifiable List with the names of all players that are included in calculations
+     */
+    public List<String> getPlayerNameList() {
+        List<String> names = includedNames;
+        if (names == null) {
+            if (includesAll()) {
+                names = Arrays.asList(playerNames).subList(0, size);
+            } else {
+                ArrayList<String> included = new ArrayList<>(includedCount);
+                for (int i = 0; i < size; i++) {
+                    if (isIncluded(i)) {
+                        included.add(playerNames[i]);
+                    }
+                }
+                names = included;
+            }
+            names = Collections.unmodifiableList(names);
+            includedNames = names;
+        }
+        return names;
+    }
+
+    /**
+     * @return the most recent time this player is known to have played
+     */
+    private long getLastSeen(int ordinal) {
+        Long rejoinTime = base.rejoined.get(ordinal);
+        return rejoinTime != null ? Math.max(rejoinTime, lastPlayed[ordinal]) : lastPlayed[ordinal];
+    }
+
+    /**
+     * Finds the players that have played since the time that lies
+     * lastPlayedLimit days before now: the first part of the loaded
+     * players (which are sorted from most to least recent), the
+     * last part of the added players (which are sorted from least to most
+     * recent), and the players that have joined again in between.
+     */
+    private ActivePlayers getActivePlayers(int lastPlayedLimit, long now) {
+        int sortedSize = base.sortedSize;
+        if (lastPlayedLimit <= 0) {
+            return new ActivePlayers(0, sortedSize, sortedSize, noOrdinals);
+        }
+        long cutoff = UnixTimeHandler.getLastPlayedCutoff(lastPlayedLimit, now);
+
+        int low = 0;
+        int high = sortedSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lastPlayed[middle] >= cutoff) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int count = low;
+
+        low = sortedSize;
+        high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lastPlayed[middle] < cutoff) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int from = low;
+
+        int[] extras = base.rejoined.entrySet().stream()
+                .filter(rejoined -> rejoined.getValue() >= cutoff)
+                .mapToInt(Map.Entry::getKey)
+                .filter(ordinal -> ordinal < size && ordinal >= count && ordinal < from)
+                .sorted()
+                .toArray();
+        return new ActivePlayers(lastPlayedLimit, count, from, extras);
+    }
+
+    /**
+     * @return the number of players that are active and not excluded,
+     * which takes a pass over the bitmap if there are any excluded players
+     */
+    private int countIncluded(ActivePlayers activePlayers, long[] bitmap, int bitmapCount) {
+        int count = activePlayers.count + (size - activePlayers.from) + activePlayers.extras.length;
+        if (bitmapCount == 0) {
+            return count;
+        }
+        count -= countExcluded(bitmap, 0, activePlayers.count);
+        count -= countExcluded(bitmap, activePlayers.from, size);
+        for (int ordinal : activePlayers.extras) {
+            count -= countExcluded(bitmap, ordinal, ordinal + 1);
+        }
+        return count;
+    }
+
+    private static long[] getExclusionBitmap(UUID[] uuids, int size, Predicate<UUID> isExcluded) {
+        long[] bitmap = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            if (isExcluded.test(uuids[i])) {
+                bitmap[i >>> 6] |= (1L << i);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return the number of excluded ordinals from start (inclusive) to end (exclusive)
+     */
+    private static int countExcluded(long[] bitmap, int start, int end) {
+        end = Math.min(end, bitmap.length << 6);
+        int count = 0;
+        for (int i = start; i < end; ) {
+            int index = i >>> 6;
+            long bits = bitmap[index] & (-1L << i);
+            int wordEnd = (index + 1) << 6;
+            if (end < wordEnd) {
+                bits &= (1L << end) - 1;
+            }
+            count += Long.bitCount(bits);
+            i = wordEnd;
+        }
+        return count;
+    }
+
+    /** The parts of a registry that are shared by all registries it is extended into. */
+    private record Base(int sortedSize, ConcurrentHashMap<String, Integer> ordinals,
+                        ConcurrentHashMap<UUID, Integer> uuidOrdinals, ConcurrentHashMap<Integer, Long> rejoined) {
+    }
+
+    /**
+     * The players that have joined within the last-played-limit: the ordinals
+     * before count, the ordinals from from onward, and the extra ordinals
+     * in between (which are sorted) of players that have joined again.
+     */
+    private record ActivePlayers(int lastPlayedLimit, int count, int from, int[] extras) {
+
+        boolean contains(int ordinal) {
+            return ordinal < count || ordinal >= from ||
+                    (extras.length > 0 && Arrays.binarySearch(extras, ordinal) >= 0);
+        }
+
+        boolean isSameAs(ActivePlayers other) {
+            return count == other.count && from == other.from && Arrays.equals(extras, other.extras);
+        }
+    }
+}
@@ -20,7 +20,20 @@ public final class UnixTimeHandler {
      *                        number-of-days-since-last-joined
      */
     public static boolean hasPlayedSince(long lastPlayedLimit, long lastPlayed) {
-        long maxLastPlayed = System.currentTimeMillis() - lastPlayedLimit * 24 * 60 * 60 * 1000;
-        return lastPlayedLimit == 0 || lastPlayed >= maxLastPlayed;
+        return lastPlayedLimit == 0 ||
+                lastPlayed >= getLastPlayedCutoff(lastPlayedLimit, System.currentTimeMillis());
+    }
+
+    /**
+     * Calculates the earliest time a player can have last joined
+     * to still fall within the lastPlayedLimit.
+     *
+     * @param lastPlayedLimit a long that represents the maximum-
+     *                        number-of-days-since-last-joined
+     * @param now the current time in milliseconds
+     * @return the earliest last-played time in milliseconds
+     */
+    public static long getLastPlayedCutoff(long lastPlayedLimit, long now) {
+        return now - lastPlayedLimit * 24 * 60 * 60 * 1000;
     }
 }
\ No newline at end of file
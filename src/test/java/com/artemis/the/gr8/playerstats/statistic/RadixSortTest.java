@@ -0,0 +1,48 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class RadixSortTest {
+
+    @Test
+    void sortsNegativeValuesBeforePositiveOnes() {
+        int[] values = {3, -1, Integer.MAX_VALUE, 0, Integer.MIN_VALUE, -256, 256, -1};
+        RadixSort.sort(values);
+        assertArrayEquals(new int[] {Integer.MIN_VALUE, -256, -1, -1, 0, 3, 256, Integer.MAX_VALUE}, values);
+    }
+
+    @Test
+    void sortsLikeArraysSort() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            //small numbers skip most bytes, large ones use all four
+            int[] values = round % 2 == 0 ?
+                    random.ints(random.nextInt(2000), -100, 1000).toArray() :
+                    random.ints(random.nextInt(2000)).toArray();
+            int[] expected = values.clone();
+            Arrays.sort(expected);
+            RadixSort.sort(values);
+            assertArrayEquals(expected, values);
+        }
+    }
+
+    @Test
+    void handlesSmallAndUniformArrays() {
+        int[] empty = {};
+        RadixSort.sort(empty);
+        assertArrayEquals(new int[0], empty);
+
+        int[] single = {-7};
+        RadixSort.sort(single);
+        assertArrayEquals(new int[] {-7}, single);
+
+        int[] same = {-3, -3, -3};
+        RadixSort.sort(same);
+        assertArrayEquals(new int[] {-3, -3, -3}, same);
+    }
+}
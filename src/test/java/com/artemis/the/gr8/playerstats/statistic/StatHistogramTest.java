@@ -0,0 +1,61 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatHistogramTest {
+
+    private static final int[] percentiles = {1, 10, 25, 50, 75, 90, 99};
+
+    @Test
+    void staysWithinErrorBound() {
+        Random random = new Random(1);
+        for (int round = 0; round < 100; round++) {
+            int bound = round % 2 == 0 ? 1000 : Integer.MAX_VALUE;
+            int[] values = random.ints(1 + random.nextInt(5000), 0, bound).toArray();
+            StatHistogram histogram = StatHistogram.of(values);
+            int[] sortedValues = values.clone();
+            Arrays.sort(sortedValues);
+
+            for (int percentile : percentiles) {
+                int exact = StatCalculator.getValueAt(sortedValues, sortedValues.length, percentile);
+                int estimate = histogram.getValueAt(percentile);
+                //half the width of a bucket, which is at most 1/16th of the values in it
+                assertTrue(Math.abs((long) estimate - exact) <= exact / 16,
+                        "percentile " + percentile + ": estimated " + estimate + " for " + exact);
+            }
+        }
+    }
+
+    @Test
+    void isExactForSmallValues() {
+        int[] values = {0, 1, 2, 3, 4, 5, 6, 7, 7, 7};
+        StatHistogram histogram = StatHistogram.of(values);
+        for (int percentile : percentiles) {
+            assertEquals(StatCalculator.getValueAt(values, values.length, percentile), histogram.getValueAt(percentile));
+        }
+    }
+
+    @Test
+    void givesExactLowestAndHighestValue() {
+        int[] values = {-40, 12, 5000, 123_456_789, 77};
+        StatHistogram histogram = StatHistogram.of(values);
+        assertEquals(-40, histogram.getValueAt(0));
+        assertEquals(123_456_789, histogram.getValueAt(100));
+        //values of 0 or lower share a bucket, but the estimate stays between the lowest and highest value
+        int lowPercentile = histogram.getValueAt(10);
+        assertTrue(lowPercentile >= -40 && lowPercentile <= 0);
+    }
+
+    @Test
+    void givesZeroWithoutValues() {
+        StatHistogram histogram = StatHistogram.of(new int[0]);
+        assertEquals(0, histogram.getValueAt(0));
+        assertEquals(0, histogram.getValueAt(50));
+        assertEquals(0, histogram.getValueAt(100));
+    }
+}
@@ -0,0 +1,87 @@
+package com.artemis.the.gr8.playerstats.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopStatSelectorTest {
+
+    @Test
+    void selectsWithHeapForSmallTopList() {
+        //a top-10 out of 10.000 goes through the bounded heap
+        int[] values = randomValues(10_000, 1000, 1);
+        assertArrayEquals(sortedIndices(values, values.length, 10), TopStatSelector.selectTop(values, values.length, 10));
+    }
+
+    @Test
+    void selectsWithQuickselectForLargeTopList() {
+        //a top-list that is large compared to the number of players goes through quickselect
+        int[] values = randomValues(10_000, 1000, 2);
+        assertArrayEquals(sortedIndices(values, values.length, 5000), TopStatSelector.selectTop(values, values.length, 5000));
+        assertArrayEquals(sortedIndices(values, values.length, 10_000), TopStatSelector.selectTop(values, values.length, 10_000));
+        //more than 1024 places always goes through quickselect
+        int[] moreValues = randomValues(100_000, 1_000_000, 3);
+        assertArrayEquals(sortedIndices(moreValues, moreValues.length, 2000),
+                TopStatSelector.selectTop(moreValues, moreValues.length, 2000));
+    }
+
+    @Test
+    void ordersTiesByIndex() {
+        int[] values = new int[100];
+        Arrays.fill(values, 5);
+        assertArrayEquals(new int[] {0, 1, 2}, TopStatSelector.selectTop(values, values.length, 3));
+        assertArrayEquals(IntStream.range(0, 100).toArray(), TopStatSelector.selectTop(values, values.length, 100));
+
+        int[] someTies = {3, 7, 7, 1, 7, 3};
+        assertArrayEquals(new int[] {1, 2, 4, 0, 5, 3}, TopStatSelector.selectTop(someTies, someTies.length, 6));
+        assertArrayEquals(new int[] {1, 2}, TopStatSelector.selectTop(someTies, someTies.length, 2));
+    }
+
+    @Test
+    void handlesNegativeValuesAndEdgeCases() {
+        int[] values = {-5, Integer.MIN_VALUE, 0, Integer.MAX_VALUE, -1};
+        assertArrayEquals(new int[] {3, 2, 4, 0, 1}, TopStatSelector.selectTop(values, values.length, 10));
+        assertArrayEquals(new int[0], TopStatSelector.selectTop(values, values.length, 0));
+        assertArrayEquals(new int[0], TopStatSelector.selectTop(values, 0, 5));
+        //values past count are ignored
+        assertArrayEquals(new int[] {2, 0}, TopStatSelector.selectTop(values, 3, 2));
+    }
+
+    @Test
+    void selectsPagesLikeTheFullTopList() {
+        Random random = new Random(4);
+        for (int round = 0; round < 500; round++) {
+            int count = random.nextInt(5000);
+            int[] values = randomValues(count, random.nextBoolean() ? 10 : 100_000, round);
+            int offset = random.nextInt(count + 10);
+            int pageSize = random.nextInt(60);
+            int[] allIndices = TopStatSelector.selectTop(values, count, count);
+            int end = Math.min(offset + pageSize, count);
+            int[] expected = Arrays.copyOfRange(allIndices, Math.min(offset, end), end);
+            assertArrayEquals(expected, TopStatSelector.selectPage(values, count, offset, pageSize),
+                    "count " + count + ", offset " + offset + ", page size " + pageSize);
+        }
+    }
+
+    private static int[] randomValues(int count, int bound, long seed) {
+        Random random = new Random(seed);
+        return IntStream.range(0, count).map(i -> random.nextInt(bound) - bound / 10).toArray();
+    }
+
+    /**
+     * @return the indices of the highest values by sorting all of them,
+     * ordered from high to low value, and by index for equal values
+     */
+    private static int[] sortedIndices(int[] values, int count, int topListSize) {
+        return IntStream.range(0, count).boxed()
+                .sorted(Comparator.<Integer>comparingInt(i -> values[i]).reversed().thenComparingInt(i -> i))
+                .limit(topListSize)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
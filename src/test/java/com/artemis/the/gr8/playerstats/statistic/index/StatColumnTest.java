@@ -0,0 +1,102 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatColumnTest {
+
+    @Test
+    void keepsRowsSortedWhenSetting() {
+        StatColumn column = new StatColumn();
+        column.set(5, 50);
+        column.set(1, 10);
+        column.set(9, 90);
+        column.set(3, 30);
+
+        assertRows(column, 1, 3, 5, 9);
+        assertEquals(30, column.get(3));
+        assertEquals(0, column.get(4));
+    }
+
+    @Test
+    void changesExistingRowWhenSetting() {
+        StatColumn column = new StatColumn();
+        column.set(2, 20);
+        column.set(2, 21);
+        assertEquals(1, column.size());
+        assertEquals(21, column.get(2));
+
+        //a row that is already there keeps its place when it is set to 0
+        column.set(2, 0);
+        assertEquals(1, column.size());
+        assertEquals(0, column.get(2));
+    }
+
+    @Test
+    void skipsZeroForNewRow() {
+        StatColumn column = new StatColumn();
+        column.set(4, 0);
+        assertEquals(0, column.size());
+    }
+
+    @Test
+    void matchesSortedMapAfterManyChanges() {
+        Random random = new Random(1);
+        StatColumn column = new StatColumn();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            int row = random.nextInt(1000);
+            int value = random.nextInt(5) == 0 ? 0 : random.nextInt();
+            column.set(row, value);
+            if (value != 0 || expected.containsKey(row)) {
+                expected.put(row, value);
+            }
+        }
+        assertEquals(expected.size(), column.size());
+        int position = 0;
+        for (var entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), column.getRow(position));
+            assertEquals(entry.getValue(), column.getValue(position));
+            position++;
+        }
+    }
+
+    @Test
+    void appendsAllRowsInOrder() {
+        StatColumn first = new StatColumn();
+        first.append(0, 1);
+        first.append(2, 3);
+        StatColumn second = new StatColumn();
+        for (int row = 3; row < 40; row++) {
+            second.append(row, row * 10);
+        }
+        StatColumn empty = new StatColumn();
+
+        first.appendAll(empty);
+        first.appendAll(second);
+        assertEquals(39, first.size());
+        assertEquals(0, first.getRow(0));
+        assertEquals(2, first.getRow(1));
+        for (int position = 2; position < first.size(); position++) {
+            assertTrue(first.getRow(position) > first.getRow(position - 1));
+        }
+        assertEquals(3, first.get(2));
+        assertEquals(390, first.get(39));
+        assertEquals(0, first.get(1));
+
+        //rows can still be set in between afterwards
+        first.set(1, 11);
+        assertRows(first, 0, 1, 2, 3);
+        assertEquals(11, first.get(1));
+    }
+
+    private static void assertRows(StatColumn column, int... firstRows) {
+        for (int position = 0; position < firstRows.length; position++) {
+            assertEquals(firstRows[position], column.getRow(position));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the time and memory it takes to read generated statistic files
+ * with the {@link StatFileParser} and with Gson. This only runs with the
+ * benchmark profile ({@code mvn test -P benchmark}), and prints its results.
+ * The number of files can be changed with {@code -Dbenchmark.files=...}.
+ */
+@Tag("benchmark")
+class StatFileParserBenchmark {
+
+    private static final String[] types = {"minecraft:mined", "minecraft:used", "minecraft:picked_up",
+            "minecraft:killed", "minecraft:custom", "minecraft:crafted", "minecraft:broken", "minecraft:dropped"};
+    private static final int warmupRounds = 5;
+    private static final int measuredRounds = 5;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void compareWithGson() throws IOException {
+        File[] files = generateFiles(Integer.getInteger("benchmark.files", 2000));
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int round = 0; round < warmupRounds + measuredRounds; round++) {
+            long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+            long parserSum = readAll(files, false);
+            long parserTime = System.nanoTime() - startTime;
+            long parserBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+            startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            startTime = System.nanoTime();
+            long gsonSum = readAll(files, true);
+            long gsonTime = System.nanoTime() - startTime;
+            long gsonBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+            assertEquals(gsonSum, parserSum);
+            if (round >= warmupRounds) {
+                System.out.printf("StatFileParser: %.1f us/file, %d B/file | Gson: %.1f us/file, %d B/file%n",
+                        parserTime / 1000.0 / files.length, parserBytes / files.length,
+                        gsonTime / 1000.0 / files.length, gsonBytes / files.length);
+            }
+        }
+    }
+
+    private static long readAll(File[] files, boolean withGson) throws IOException {
+        long[] sum = new long[1];
+        for (File file : files) {
+            if (withGson) {
+                StatFileParser.parseWithGson(file, (key, value) -> sum[0] += value + key.length());
+            } else {
+                StatFileParser.parse(file, (key, value) -> sum[0] += value + key.length());
+            }
+        }
+        return sum[0];
+    }
+
+    /**
+     * Generates statistic files that look like the ones Minecraft writes,
+     * with 20 to 80 statistics of each type.
+     */
+    private File[] generateFiles(int count) throws IOException {
+        Random random = new Random(1);
+        File[] files = new File[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder content = new StringBuilder("{\"stats\":{");
+            for (int type = 0; type < types.length; type++) {
+                content.append(type > 0 ? "," : "").append('"').append(types[type]).append("\":{");
+                int stats = 20 + random.nextInt(60);
+                for (int stat = 0; stat < stats; stat++) {
+                    content.append(stat > 0 ? "," : "").append("\"minecraft:item_").append(random.nextInt(400))
+                            .append('_').append(stat).append("\":").append(random.nextInt(100_000));
+                }
+                content.append('}');
+            }
+            content.append("},\"DataVersion\":3120}");
+            Path file = folder.resolve(UUID.randomUUID() + ".json");
+            Files.writeString(file, content);
+            files[i] = file.toFile();
+        }
+        return files;
+    }
+}
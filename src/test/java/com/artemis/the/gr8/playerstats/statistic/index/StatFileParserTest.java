@@ -0,0 +1,181 @@
+package com.artemis.the.gr8.playerstats.statistic.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatFileParserTest {
+
+    /** A statistic file the way Minecraft writes it (with a few values of 0 and a negative one). */
+    private static final String realFile = """
+            {"stats":{"minecraft:custom":{"minecraft:jump":1543,"minecraft:leave_game":12,\
+            "minecraft:play_time":480213,"minecraft:sneak_time":0,"minecraft:walk_one_cm":2147483647},\
+            "minecraft:mined":{"minecraft:stone":872,"minecraft:dirt":95},\
+            "minecraft:killed":{"minecraft:zombie":-3},"minecraft:used":{}},"DataVersion":3120}""";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void parsesRealFileLikeGson() throws IOException {
+        File file = write(realFile);
+
+        Map<String, Integer> scanned = scan(file);
+        assertNotNull(scanned);
+        assertEquals(parseWithGson(file), scanned);
+        assertEquals(1543, scanned.get("minecraft:custom/minecraft:jump"));
+        assertEquals(Integer.MAX_VALUE, scanned.get("minecraft:custom/minecraft:walk_one_cm"));
+        assertEquals(-3, scanned.get("minecraft:killed/minecraft:zombie"));
+        assertFalse(scanned.containsKey("minecraft:custom/minecraft:sneak_time"));
+    }
+
+    @Test
+    void parsesPrettyPrintedFileLikeGson() throws IOException {
+        File file = write("""
+                {
+                  "DataVersion": 3120,
+                  "extra": {"list": [1, {"a": "b}"}, "c"], "flag": true},
+                  "stats": {
+                    "minecraft:mined": {
+                      "minecraft:stone": 10,
+                      "minecraft:granite": 2
+                    },
+                    "minecraft:custom": { }
+                  }
+                }
+                """);
+
+        Map<String, Integer> scanned = scan(file);
+        assertNotNull(scanned);
+        assertEquals(parseWithGson(file), scanned);
+        assertEquals(2, scanned.size());
+    }
+
+    @Test
+    void parsesFilesWithoutStatistics() throws IOException {
+        for (String content : new String[] {"{}", "{\"DataVersion\":3120}", "{\"stats\":{}}"}) {
+            Map<String, Integer> scanned = scan(write(content));
+            assertNotNull(scanned, content);
+            assertTrue(scanned.isEmpty(), content);
+        }
+    }
+
+    @Test
+    void parsesLargeFileWithManyKeysLikeGson() throws IOException {
+        //bigger than the 64 KB buffer, and more keys than the initial key table holds
+        Random random = new Random(1);
+        StringBuilder content = new StringBuilder("{\"stats\":{");
+        for (int type = 0; type < 8; type++) {
+            content.append(type > 0 ? "," : "").append("\"minecraft:type_").append(type).append("\":{");
+            for (int stat = 0; stat < 500; stat++) {
+                content.append(stat > 0 ? "," : "").append("\"minecraft:stat_").append(stat)
+                        .append("\":").append(random.nextInt(1_000_000));
+            }
+            content.append('}');
+        }
+        File file = write(content.append("},\"DataVersion\":3120}").toString());
+        assertTrue(file.length() > 64 * 1024);
+
+        Map<String, Integer> scanned = scan(file);
+        assertNotNull(scanned);
+        assertEquals(parseWithGson(file), scanned);
+    }
+
+    @Test
+    void handsOutTheSameKeyEveryTime() throws IOException {
+        File file = write(realFile);
+        List<String> firstKeys = new ArrayList<>();
+        List<String> secondKeys = new ArrayList<>();
+        StatFileParser.parse(file, (key, value) -> firstKeys.add(key));
+        StatFileParser.parse(file, (key, value) -> secondKeys.add(key));
+
+        assertEquals(firstKeys, secondKeys);
+        for (int i = 0; i < firstKeys.size(); i++) {
+            assertSame(firstKeys.get(i), secondKeys.get(i));
+        }
+    }
+
+    /**
+     * These files are valid JSON, but don't look like a regular statistic file,
+     * so the scanner gives up and parse() reads them with Gson instead.
+     */
+    @Test
+    void fallsBackToGsonForUnusualFiles() throws IOException {
+        String[] unusualFiles = {
+                "{\"stats\":{\"minecraft:custom\":{\"minecraft:\\u006aump\":5}}}",
+                "{\"stats\":{\"minecraft:custom\":{\"minecraft:jump\":5.0}}}",
+                "{\"stats\":{\"minecraft:custom\":{\"minecraft:jump\":1e3}}}",
+                "{\"stats\":{\"minecraft:custom\":7,\"minecraft:mined\":{\"minecraft:stone\":4}}}",
+                "{\"stats\":{\"minecraft:custom\":{\"minecraft:jump\":2147483648}}}"};
+        for (String content : unusualFiles) {
+            File file = write(content);
+            assertNull(scan(file), content);
+
+            Map<String, Integer> parsed = new LinkedHashMap<>();
+            StatFileParser.parse(file, parsed::put);
+            assertEquals(parseWithGson(file), parsed, content);
+        }
+    }
+
+    @Test
+    void readsEscapedKeyAndDecimalValueWithGson() throws IOException {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        StatFileParser.parse(write("{\"stats\":{\"minecraft:custom\":{\"minecraft:\\u006aump\":5.0}}}"), parsed::put);
+        assertEquals(Map.of("minecraft:custom/minecraft:jump", 5), parsed);
+    }
+
+    @Test
+    void throwsForBrokenFiles() throws IOException {
+        String[] brokenFiles = {
+                "",
+                "{\"stats\":{\"minecraft:custom\":{\"minecraft:jump\":5",
+                "{\"stats\":{\"minecraft:custom\":{\"minecraft:jump\":}}}",
+                "[1, 2, 3]"};
+        for (String content : brokenFiles) {
+            File file = write(content);
+            assertNull(scan(file), content);
+            assertThrows(RuntimeException.class, () -> StatFileParser.parse(file, (key, value) -> {}));
+        }
+    }
+
+    @Test
+    void skipsStatisticsFromFileThatFailsHalfway() throws IOException {
+        //the scanner finds two statistics before it gives up, but none are passed on
+        File file = write("{\"stats\":{\"minecraft:mined\":{\"minecraft:stone\":1,\"minecraft:dirt\":2},\"minecraft:custom\":[]}}");
+        List<String> keys = new ArrayList<>();
+        assertFalse(StatFileParser.tryScan(file, (key, value) -> keys.add(key)));
+        assertTrue(keys.isEmpty());
+    }
+
+    private File write(String content) throws IOException {
+        Path file = Files.createTempFile(folder, "stats", ".json");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+
+    /**
+     * @return the statistics found by the scanner, or null if it gave up
+     */
+    private static Map<String, Integer> scan(File file) throws IOException {
+        Map<String, Integer> scanned = new LinkedHashMap<>();
+        return StatFileParser.tryScan(file, scanned::put) ? scanned : null;
+    }
+
+    private static Map<String, Integer> parseWithGson(File file) throws IOException {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        StatFileParser.parseWithGson(file, parsed::put);
+        return parsed;
+    }
+}
@@ -0,0 +1,161 @@
+package com.artemis.the.gr8.playerstats.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerRegistryTest {
+
+    private static final long day = 24 * 60 * 60 * 1000L;
+
+    private final UUID steve = UUID.randomUUID();
+    private final UUID alex = UUID.randomUUID();
+    private final UUID notch = UUID.randomUUID();
+
+    /**
+     * Steve played yesterday, Alex 10 days ago and Notch 100 days ago.
+     */
+    private PlayerRegistry getRegistry(int lastPlayedLimit, Set<UUID> excluded) {
+        long now = System.currentTimeMillis();
+        Map<String, UUID> players = new LinkedHashMap<>();
+        players.put("Notch", notch);
+        players.put("Alex", alex);
+        players.put("Steve", steve);
+        Map<UUID, Long> lastPlayed = Map.of(steve, now - day, alex, now - 10 * day, notch, now - 100 * day);
+        return new PlayerRegistry(0, players, lastPlayed::get, excluded::contains, lastPlayedLimit);
+    }
+
+    @Test
+    void ordersLoadedPlayersByLastPlayed() {
+        PlayerRegistry players = getRegistry(0, Set.of());
+        assertEquals(0, players.getOrdinal(steve));
+        assertEquals(1, players.getOrdinal("Alex"));
+        assertEquals(2, players.getOrdinal(notch));
+        assertEquals(-1, players.getOrdinal("Herobrine"));
+        assertTrue(players.includesAll());
+        assertEquals(List.of("Steve", "Alex", "Notch"), players.getPlayerNameList());
+    }
+
+    @Test
+    void leavesOutExcludedPlayers() {
+        PlayerRegistry players = getRegistry(0, Set.of(alex));
+        int ordinal = players.getOrdinal(alex);
+        assertTrue(players.isExcluded(ordinal));
+        assertFalse(players.isIncluded(ordinal));
+        assertEquals(2, players.getIncludedCount());
+        assertNull(players.getUUID("Alex"));
+        assertFalse(players.contains("Alex"));
+        assertEquals(List.of("Steve", "Notch"), players.getPlayerNameList());
+    }
+
+    @Test
+    void changesExclusionInNewEpoch() {
+        PlayerRegistry players = getRegistry(0, Set.of());
+        int ordinal = players.getOrdinal(steve);
+        assertSame(players, players.withExclusion(ordinal, false));
+
+        PlayerRegistry banned = players.withExclusion(ordinal, true);
+        assertEquals(players.getEpoch() + 1, banned.getEpoch());
+        assertTrue(banned.isExtensionOf(players));
+        assertFalse(banned.isIncluded(ordinal));
+        assertTrue(players.isIncluded(ordinal));
+        assertEquals(2, banned.getIncludedCount());
+
+        PlayerRegistry pardoned = banned.withExclusion(ordinal, false);
+        assertTrue(pardoned.isIncluded(ordinal));
+        assertEquals(3, pardoned.getIncludedCount());
+
+        assertSame(pardoned, pardoned.withExclusions(uuid -> false));
+        PlayerRegistry reloaded = pardoned.withExclusions(notch::equals);
+        assertEquals(pardoned.getEpoch() + 1, reloaded.getEpoch());
+        assertTrue(reloaded.isExcluded(reloaded.getOrdinal(notch)));
+        assertEquals(2, reloaded.getIncludedCount());
+    }
+
+    @Test
+    void includesOnlyRecentPlayers() {
+        PlayerRegistry players = getRegistry(30, Set.of());
+        assertTrue(players.isIncluded(players.getOrdinal(steve)));
+        assertTrue(players.isIncluded(players.getOrdinal(alex)));
+        assertFalse(players.isIncluded(players.getOrdinal(notch)));
+        assertEquals(2, players.getIncludedCount());
+
+        PlayerRegistry lastWeek = players.forLastPlayedLimit(7);
+        assertEquals(players.getEpoch(), lastWeek.getEpoch());
+        assertEquals(1, lastWeek.getIncludedCount());
+        assertEquals(3, players.forLastPlayedLimit(0).getIncludedCount());
+    }
+
+    @Test
+    void includesPlayerWhoJoinsAgain() {
+        long now = System.currentTimeMillis();
+        PlayerRegistry players = getRegistry(30, Set.of());
+        int ordinal = players.getOrdinal(notch);
+        assertSame(players, players.withActivity(players.getOrdinal(steve), now));
+
+        PlayerRegistry rejoined = players.withActivity(ordinal, now);
+        assertEquals(players.getEpoch() + 1, rejoined.getEpoch());
+        assertTrue(rejoined.isIncluded(ordinal));
+        assertEquals(3, rejoined.getIncludedCount());
+
+        //Notch is remembered until 30 days after joining again, while Alex drops out before that
+        PlayerRegistry later = rejoined.withActivePlayers(now + 25 * day);
+        assertTrue(later.isIncluded(ordinal));
+        assertTrue(later.isIncluded(later.getOrdinal(steve)));
+        assertFalse(later.isIncluded(later.getOrdinal(alex)));
+        assertEquals(2, later.getIncludedCount());
+
+        PlayerRegistry muchLater = later.withActivePlayers(now + 31 * day);
+        assertFalse(muchLater.isIncluded(ordinal));
+        assertEquals(0, muchLater.getIncludedCount());
+        assertSame(muchLater, muchLater.withActivePlayers(now + 31 * day));
+    }
+
+    @Test
+    void addsNewPlayerInSameEpoch() {
+        PlayerRegistry players = getRegistry(30, Set.of());
+        UUID herobrine = UUID.randomUUID();
+        PlayerRegistry added = players.withPlayer("Herobrine", herobrine, System.currentTimeMillis());
+
+        assertEquals(players.getEpoch(), added.getEpoch());
+        assertTrue(added.isExtensionOf(players));
+        assertFalse(players.isExtensionOf(added));
+        assertEquals(3, added.getOrdinal(herobrine));
+        assertTrue(added.isIncluded(3));
+        assertEquals(3, added.getIncludedCount());
+        //the older registry doesn't change
+        assertEquals(-1, players.getOrdinal(herobrine));
+        assertEquals(-1, players.getOrdinal("Herobrine"));
+        assertEquals(3, players.size());
+
+        assertSame(added, added.withPlayer("Herobrine", herobrine, System.currentTimeMillis()));
+    }
+
+    @Test
+    void givesNameToNewPlayerWhoTakesIt() {
+        PlayerRegistry players = getRegistry(0, Set.of());
+        int previousOwner = players.getOrdinal("Alex");
+        UUID newAlex = UUID.randomUUID();
+        PlayerRegistry added = players.withPlayer("Alex", newAlex, System.currentTimeMillis());
+
+        assertEquals(3, added.getOrdinal("Alex"));
+        assertEquals(newAlex, added.getUUID("Alex"));
+        assertEquals(previousOwner, added.getOrdinal("Alex#" + previousOwner));
+        assertEquals(4, new HashSet<>(List.of(added.getPlayerNames())).size());
+        //the older registry still finds the previous owner by name
+        assertEquals(previousOwner, players.getOrdinal("Alex"));
+        assertEquals("Alex", players.getPlayerName(previousOwner));
+        assertEquals(-1, players.getOrdinal("Alex#" + previousOwner));
+
+        PlayerRegistry addedAgain = added.withPlayer("Steve2", UUID.randomUUID(), System.currentTimeMillis());
+        assertEquals(3, addedAgain.getOrdinal("Alex"));
+        assertEquals(-1, added.getOrdinal("Steve2"));
+    }
+}